@@ -0,0 +1,91 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the math in {@link DriveSubsystem#drive(double, double, double, boolean, boolean)}
+ * without the hardware, by calling the same {@link DriveSetpoints} it does: field-relative
+ * rotation, inverse kinematics and desaturation, with and without the setpoint generator, against
+ * the same work done with WPILib's {@link SwerveDriveKinematics}. The module writes are left out,
+ * since they only reach the motor controllers when a setpoint changes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DriveKinematicsBenchmark {
+  private static final int kInputs = 1024;
+
+  private final double[] m_x = new double[kInputs];
+  private final double[] m_y = new double[kInputs];
+  private final double[] m_rot = new double[kInputs];
+  private final double[] m_heading = new double[kInputs];
+  private int m_index = 0;
+
+  // The math drive() runs, without the modules
+  private final DriveSetpoints m_setpoints = new DriveSetpoints();
+
+  @Setup
+  public void setup() {
+    // Joystick-like requests, with the gyro anywhere in a few turns
+    Random random = new Random(42);
+    for (int i = 0; i < kInputs; i++) {
+      m_x[i] = random.nextDouble() * 2 - 1;
+      m_y[i] = random.nextDouble() * 2 - 1;
+      m_rot[i] = random.nextDouble() * 2 - 1;
+      m_heading[i] = (random.nextDouble() - 0.5) * 720;
+    }
+  }
+
+  private int next() {
+    m_index = (m_index + 1) & (kInputs - 1);
+    return m_index;
+  }
+
+  @Benchmark
+  public double[] drive() {
+    return update(false);
+  }
+
+  @Benchmark
+  public double[] driveRateLimited() {
+    return update(true);
+  }
+
+  private double[] update(boolean rateLimit) {
+    int i = next();
+    m_setpoints.update(
+        m_x[i] * DriveConstants.kMaxSpeedMetersPerSecond,
+        m_y[i] * DriveConstants.kMaxSpeedMetersPerSecond,
+        m_rot[i] * DriveConstants.kMaxAngularSpeed,
+        Rotation2d.fromDegrees(m_heading[i]),
+        rateLimit,
+        0.02);
+    return m_setpoints.m_moduleSpeeds;
+  }
+
+  @Benchmark
+  public SwerveModuleState[] wpilibKinematics() {
+    int i = next();
+    SwerveModuleState[] states = DriveConstants.kDriveKinematics.toSwerveModuleStates(
+        ChassisSpeeds.fromFieldRelativeSpeeds(
+            m_x[i] * DriveConstants.kMaxSpeedMetersPerSecond,
+            m_y[i] * DriveConstants.kMaxSpeedMetersPerSecond,
+            m_rot[i] * DriveConstants.kMaxAngularSpeed,
+            Rotation2d.fromDegrees(m_heading[i])));
+    SwerveDriveKinematics.desaturateWheelSpeeds(states, DriveConstants.kMaxSpeedMetersPerSecond);
+    return states;
+  }
+}
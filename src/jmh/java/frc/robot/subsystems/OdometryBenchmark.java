@@ -0,0 +1,83 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.LimelightConstants;
+import frc.utils.PoseHistory;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks one odometry sample as {@link DriveSubsystem#periodic()} integrates it: a pose
+ * estimator update followed by recording the pose in the {@link PoseHistory}, plus the
+ * latency-compensated history lookup used for vision. The robot drives a steady arc, so every
+ * sample moves the modules and the gyro.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OdometryBenchmark {
+  private static final double kPeriodSeconds = 1 / DriveConstants.kOdometryFrequencyHz;
+
+  private final SwerveModulePosition[] m_positions = {
+    new SwerveModulePosition(),
+    new SwerveModulePosition(),
+    new SwerveModulePosition(),
+    new SwerveModulePosition()
+  };
+  private SwerveDrivePoseEstimator m_poseEstimator;
+  private PoseHistory m_poseHistory;
+  private final double[] m_lookup = new double[3];
+  private double m_time;
+
+  @Setup
+  public void setup() {
+    m_poseEstimator = new SwerveDrivePoseEstimator(
+        DriveConstants.kDriveKinematics,
+        new Rotation2d(),
+        m_positions,
+        new Pose2d(),
+        DriveConstants.kStateStdDevs,
+        LimelightConstants.kVisionStdDevs);
+    m_poseHistory = new PoseHistory(
+        (int) Math.ceil(DriveConstants.kPoseHistorySeconds * DriveConstants.kOdometryFrequencyHz));
+    m_time = 0;
+    // Fill the history so lookups search a full buffer
+    for (int i = 0; i < 1000; i++) {
+      update();
+    }
+  }
+
+  private Pose2d update() {
+    m_time += kPeriodSeconds;
+    for (int i = 0; i < m_positions.length; i++) {
+      m_positions[i].distanceMeters += (2.0 + 0.1 * i) * kPeriodSeconds;
+      m_positions[i].angle = Rotation2d.fromRadians(0.3 * m_time);
+    }
+    Pose2d pose = m_poseEstimator.updateWithTime(
+        m_time, Rotation2d.fromRadians(0.5 * m_time), m_positions);
+    m_poseHistory.record(m_time, pose);
+    return pose;
+  }
+
+  @Benchmark
+  public Pose2d updateAndRecord() {
+    return update();
+  }
+
+  @Benchmark
+  public double[] historyLookup() {
+    // A camera frame from about 50 ms ago
+    m_poseHistory.getPoseAt(m_time - 0.0513, m_lookup);
+    return m_lookup;
+  }
+}
@@ -0,0 +1,95 @@
+package frc.utils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares lookups in the boxed {@link InterpolatingTreeMap} with the primitive
+ * {@link InterpolatingDoubleTable}, {@link InterpolatingDoubleGrid} and
+ * {@link InterpolatingTimeSeries}, for tables the size of the shooter maps and larger.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InterpolationBenchmark {
+  private static final int kInputs = 1024;
+
+  @Param({"4", "64"})
+  public int m_points;
+
+  private final InterpolatingTreeMap<InterpolatingDouble, InterpolatingDouble> m_treeMap =
+      new InterpolatingTreeMap<>();
+  private final InterpolatingDoubleTable m_linearTable =
+      new InterpolatingDoubleTable(InterpolatingDoubleTable.Mode.LINEAR);
+  private final InterpolatingDoubleTable m_cubicTable =
+      new InterpolatingDoubleTable(InterpolatingDoubleTable.Mode.MONOTONE_CUBIC);
+  private InterpolatingDoubleGrid m_grid;
+  private InterpolatingTimeSeries m_timeSeries;
+
+  private final double[] m_keys = new double[kInputs];
+  private int m_index = 0;
+
+  @Setup
+  public void setup() {
+    m_treeMap.clear();
+    double[] keys = new double[m_points];
+    double[] values = new double[m_points * m_points];
+    m_timeSeries = new InterpolatingTimeSeries(m_points);
+    for (int i = 0; i < m_points; i++) {
+      keys[i] = i;
+      double value = 1400 + 100 * Math.sqrt(i);
+      m_treeMap.put(new InterpolatingDouble((double) i), new InterpolatingDouble(value));
+      m_linearTable.put(i, value);
+      m_cubicTable.put(i, value);
+      m_timeSeries.add(i, value);
+      for (int j = 0; j < m_points; j++) {
+        values[i * m_points + j] = value - 5 * Math.abs(j - m_points / 2.0);
+      }
+    }
+    m_grid = new InterpolatingDoubleGrid(keys, keys, values);
+
+    Random random = new Random(42);
+    for (int i = 0; i < kInputs; i++) {
+      m_keys[i] = random.nextDouble() * (m_points - 1);
+    }
+  }
+
+  private double nextKey() {
+    m_index = (m_index + 1) & (kInputs - 1);
+    return m_keys[m_index];
+  }
+
+  @Benchmark
+  public InterpolatingDouble treeMap() {
+    return m_treeMap.getInterpolated(new InterpolatingDouble(nextKey()));
+  }
+
+  @Benchmark
+  public double linearTable() {
+    return m_linearTable.getInterpolated(nextKey());
+  }
+
+  @Benchmark
+  public double cubicTable() {
+    return m_cubicTable.getInterpolated(nextKey());
+  }
+
+  @Benchmark
+  public double grid() {
+    double key = nextKey();
+    return m_grid.getInterpolated(key, m_points - 1 - key);
+  }
+
+  @Benchmark
+  public double timeSeries() {
+    return m_timeSeries.getInterpolated(nextKey());
+  }
+}
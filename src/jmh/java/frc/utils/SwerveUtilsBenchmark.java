@@ -0,0 +1,70 @@
+package frc.utils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the angle helpers in {@link SwerveUtils} and the unit conversions in
+ * {@link MagEncoderUtil}, which run for every module or motor every loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SwerveUtilsBenchmark {
+  private static final int kInputs = 1024;
+
+  private final double[] m_angles = new double[kInputs];
+  private final double[] m_targets = new double[kInputs];
+  private final double[] m_counts = new double[kInputs];
+  private int m_index = 0;
+
+  @Setup
+  public void setup() {
+    // Angles outside [0, 2pi) so the wrapping loops do some work
+    Random random = new Random(42);
+    for (int i = 0; i < kInputs; i++) {
+      m_angles[i] = (random.nextDouble() - 0.5) * 8 * Math.PI;
+      m_targets[i] = (random.nextDouble() - 0.5) * 8 * Math.PI;
+      m_counts[i] = (random.nextDouble() - 0.5) * 100000;
+    }
+  }
+
+  private int next() {
+    m_index = (m_index + 1) & (kInputs - 1);
+    return m_index;
+  }
+
+  @Benchmark
+  public double stepTowardsCircular() {
+    int i = next();
+    return SwerveUtils.StepTowardsCircular(m_angles[i], m_targets[i], 0.1);
+  }
+
+  @Benchmark
+  public double wrapAngle() {
+    return SwerveUtils.WrapAngle(m_angles[next()]);
+  }
+
+  @Benchmark
+  public double angleDifference() {
+    int i = next();
+    return SwerveUtils.AngleDifference(m_angles[i], m_targets[i]);
+  }
+
+  @Benchmark
+  public double magEncoderNativeUnitsToVelocity() {
+    return MagEncoderUtil.nativeUnitsToVelocity(m_counts[next()], 2 * Math.PI, 30);
+  }
+
+  @Benchmark
+  public int magEncoderDistanceToNativeUnits() {
+    return MagEncoderUtil.distanceToNativeUnits(m_angles[next()], 2 * Math.PI, 30);
+  }
+}
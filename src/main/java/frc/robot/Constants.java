@@ -6,13 +6,20 @@ package frc.robot;
 
 import edu.wpi.first.math.kinematics.DifferentialDriveKinematics;
 
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
 import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
 
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import frc.utils.*;
 import edu.wpi.first.math.util.Units;
+import java.util.Map;
 
 /**
  * The Constants class provides a convenient place for teams to hold robot-wide numerical or boolean
@@ -29,9 +36,9 @@ public final class Constants {
     public static final double kMaxSpeedMetersPerSecond = 4.8;
     public static final double kMaxAngularSpeed = 2 * Math.PI; // radians per second
 
-    public static final double kDirectionSlewRate = 1.2; // radians per second
-    public static final double kMagnitudeSlewRate = 1.8; // percent per second (1 = 100%)
-    public static final double kRotationalSlewRate = 2.0; // percent per second (1 = 100%)
+    // Limits used by the setpoint generator when rate limiting is enabled
+    public static final double kMaxModuleAccelerationMetersPerSecondSquared = 8.0;
+    public static final double kMaxModuleSteeringRadiansPerSecond = 10.0;
 
     // Chassis configuration
     public static final double kTrackWidth = Units.inchesToMeters(24.5);
@@ -43,6 +50,13 @@ public final class Constants {
         new Translation2d(kWheelBase / 2, -kTrackWidth / 2),
         new Translation2d(-kWheelBase / 2, kTrackWidth / 2),
         new Translation2d(-kWheelBase / 2, -kTrackWidth / 2));
+    // The same module layout for the allocation-free solver used by DriveSubsystem.drive()
+    public static final double[] kModuleX =
+        {kWheelBase / 2, kWheelBase / 2, -kWheelBase / 2, -kWheelBase / 2};
+    public static final double[] kModuleY =
+        {kTrackWidth / 2, -kTrackWidth / 2, kTrackWidth / 2, -kTrackWidth / 2};
+    public static final FourModuleSwerveKinematics kModuleKinematics =
+        new FourModuleSwerveKinematics(kModuleX, kModuleY);
 
     // Angular offsets of the modules relative to the chassis in radians
     public static final double kFrontLeftChassisAngularOffset = -Math.PI / 2;
@@ -61,6 +75,14 @@ public final class Constants {
     public static final int kRearRightDrivingCanId = 8;
 
     public static final boolean kGyroReversed = false;
+
+    // Odometry sampling thread
+    public static final double kOdometryFrequencyHz = 250;
+    public static final int kOdometryBufferCapacity = 32; // samples
+    public static final double kPoseHistorySeconds = 1.5;
+
+    // Standard deviations of the wheel odometry state (x and y in meters, heading in radians)
+    public static final Matrix<N3, N1> kStateStdDevs = VecBuilder.fill(0.1, 0.1, 0.1);
   }
 
   public static final class ModuleConstants {
@@ -112,6 +134,68 @@ public final class Constants {
 
     public static final int kDrivingMotorCurrentLimit = 50; // amps
     public static final int kTurningMotorCurrentLimit = 20; // amps
+
+    // Setpoint changes smaller than these are not resent until the keep-alive interval passes
+    public static final double kDrivingSetpointEpsilon = 0.005; // meters per second
+    public static final double kTurningSetpointEpsilon = 0.002; // radians
+
+    // Status frame periods in milliseconds. Status 0 is applied output and faults, 1 is velocity,
+    // temperature, voltage and current, 2 is relative encoder position, 3 is analog sensor, 4 is
+    // alternate encoder, 5 is duty cycle absolute position and 6 is duty cycle absolute velocity.
+    // The driving SPARK MAX speeds up position for odometry; the turning SPARK MAX speeds up the
+    // absolute encoder position. Frames nothing reads are slowed down.
+    public static final Map<PeriodicFrame, Integer> kDrivingStatusFramePeriods = Map.of(
+        PeriodicFrame.kStatus0, 100,
+        PeriodicFrame.kStatus1, 20,
+        PeriodicFrame.kStatus2, 10,
+        PeriodicFrame.kStatus3, 500,
+        PeriodicFrame.kStatus4, 500,
+        PeriodicFrame.kStatus5, 500,
+        PeriodicFrame.kStatus6, 500);
+    public static final Map<PeriodicFrame, Integer> kTurningStatusFramePeriods = Map.of(
+        PeriodicFrame.kStatus0, 100,
+        PeriodicFrame.kStatus1, 100,
+        PeriodicFrame.kStatus2, 500,
+        PeriodicFrame.kStatus3, 500,
+        PeriodicFrame.kStatus4, 500,
+        PeriodicFrame.kStatus5, 10,
+        PeriodicFrame.kStatus6, 500);
+  }
+
+  public static final class CANConstants {
+    // Longest time an unchanged motor controller output goes without being resent
+    public static final double kOutputKeepAliveSeconds = 0.1;
+  }
+
+  public static final class TelemetryConstants {
+    // Time between telemetry flushes on the background publisher thread
+    public static final double kPublishPeriodSeconds = 0.05;
+
+    // Signals that only need to be seen occasionally are published every Nth flush
+    public static final int kSlowSignalDecimation = 10;
+
+    // Loops whose robotPeriodic() takes longer than this are logged with a per-section breakdown
+    public static final double kLoopOverrunSeconds = 0.02;
+
+    // Per-loop allocation and GC pause monitoring. Off by default; when off it costs one branch
+    // per loop.
+    public static final boolean kAllocationMonitorEnabled = false;
+    public static final long kAllocationBudgetBytesPerLoop = 64 * 1024;
+  }
+
+  public static final class LoggingConstants {
+    // Binary signal logging to DataLog files, written by a background thread
+    public static final boolean kSignalLoggingEnabled = true;
+    public static final double kFlushPeriodSeconds = 0.1;
+    public static final long kMaxFileBytes = 32L * 1024 * 1024;
+    public static final int kMaxFiles = 8;
+    public static final long kMinFreeBytes = 64L * 1024 * 1024;
+  }
+
+  public static final class TuningConstants {
+    // Publishes tunable parameters to the dashboard and listens for changes. Keep this false for
+    // competition so nothing can be retuned mid-match.
+    public static final boolean kTuningEnabled = false;
   }
 
   public static final class ControllerConstants {
@@ -130,10 +214,121 @@ public final class Constants {
     public static final double kMaxOutput = 1;
     public static final double kMinOutput = -1;
 
+    // Arm leader encoder positions for each preset, in rotations. At INTAKE the operator's stick
+    // moves the arm up to kIntakeManualRangeRotations either way.
+    public static final double kStartRotations = -3;
+    public static final double kIntakeRotations = -6;
+    public static final double kIntakeManualRangeRotations = 3.5;
+    public static final double kLowRotations = -15;
+    public static final double kHighRotations = -17;
+    public static final double kExtraHighRotations = -20;
+
+    // Motion profile between presets
+    public static final double kArmMaxVelocityRotationsPerSecond = 15;
+    public static final double kArmMaxAccelerationRotationsPerSecondSquared = 30;
+    public static final double kArmGoalToleranceRotations = 0.5;
+    public static final double kDt = 0.02;
+
+    // Converts arm leader encoder rotations to arm radians. Negative because the encoder counts
+    // down as the arm raises. The horizontal position is where gravity torque is greatest; it is
+    // estimated from the presets and should be measured with the arm level.
+    public static final double kArmRadiansPerRotation = -2 * Math.PI / 36;
+    public static final double kArmHorizontalRotations = -12;
+
+    // Arm feedforward gains in volts, volts per rad/s and volts per rad/s^2 at the arm. Not fit
+    // yet, so they are zero and the SPARK MAX position loop works alone. Run ArmCharacterization
+    // and fit these from its log before setting them.
+    public static final double kArmS = 0;
+    public static final double kArmG = 0;
+    public static final double kArmV = 0;
+    public static final double kArmA = 0;
+    public static final double kArmFeedforwardEpsilon = 0.02; // volts
+
+    // Arm geometry and the safe envelope for the arm tip, measured from the arm pivot. The
+    // 2023 rules allow 48 in of extension past the frame perimeter and a 6 ft 6 in height. The
+    // pivot height, base length, spool ratio and pivot-to-frame distance are placeholders, not
+    // measured on the arm, so the envelope is not enforced yet. Measure them, check that every
+    // preset above lies inside the envelope, then set kArmGeometryCalibrated; from then on the arm
+    // refuses moves that would leave it.
+    public static final boolean kArmGeometryCalibrated = false;
+    public static final double kArmPivotHeightMeters = 0.95;
+    public static final double kArmBaseLengthMeters = 0.75;
+    public static final double kArmMetersPerSpoolRotation = 1.0;
+    public static final double kArmPivotToFrameEdgeMeters = 0.3;
+    public static final double kMaxExtensionPastFrameMeters = Units.inchesToMeters(48);
+    public static final double kMaxHeightMeters = Units.inchesToMeters(78);
+    public static final double kMinHeightMeters = 0.02;
+    public static final double kBumperDepthMeters = 0.09;
+    public static final double kBumperHeightMeters = 0.2;
+    public static final int kArmPlannerCheckSamples = 50;
+
+    // Characterization test voltages
+    public static final double kArmCharacterizationRampVoltsPerSecond = 0.25;
+    public static final double kArmCharacterizationStepVolts = 4;
+
     public static final int kSpoolMotorPort = 11;
     public static final double kSpoolMotorForwardLimit = 0.227;
     public static final double kSpoolMotorReverseLimit = 0;
     public static final double kInitialSpoolPosition = 0;
+    public static final double kSpoolGearing = 30;
+
+    // Spool extension for each arm preset, in spool rotations within the soft limits above
+    public static final double kSpoolStartExtension = 0;
+    public static final double kSpoolIntakeExtension = 0.05;
+    public static final double kSpoolLowExtension = 0.1;
+    public static final double kSpoolHighExtension = 0.2;
+    public static final double kSpoolExtraHighExtension = 0.227;
+
+    // Operator jogging of the spool target, in spool rotations per second
+    public static final double kSpoolJogRate = 0.15;
+    public static final double kSpoolJogDeadband = 0.25;
+    public static final double kSpoolToleranceRotations = 0.005;
+
+    // Spool Motion Magic gains (Talon native units) and constraints (spool rotations per second
+    // and per second squared). These are placeholders, not tuned on the spool, so closed loop is
+    // off: the operator jogs the spool open loop at kSpoolJogOutput as before, and presets do not
+    // move it. Tune these, then set kSpoolClosedLoopTuned.
+    public static final boolean kSpoolClosedLoopTuned = false;
+    public static final double kSpoolJogOutput = 0.9;
+    public static final double kSpoolP = 0.5;
+    public static final double kSpoolD = 0;
+    public static final double kSpoolF = 0.15;
+    public static final double kSpoolCruiseVelocity = 0.5;
+    public static final double kSpoolAcceleration = 1.5;
+
+    // Output changes smaller than these are not resent until the keep-alive interval passes
+    public static final double kArmSetpointEpsilon = 0.01; // rotations
+    public static final double kSpoolSetpointEpsilon = 0.0005; // spool rotations
+
+    // Status frame periods in milliseconds (see ModuleConstants for the SPARK MAX frame contents).
+    // The follower mirrors the leader's status 0, so the leader keeps it at the default rate.
+    public static final Map<PeriodicFrame, Integer> kArmLeaderStatusFramePeriods = Map.of(
+        PeriodicFrame.kStatus0, 10,
+        PeriodicFrame.kStatus1, 20,
+        PeriodicFrame.kStatus2, 20,
+        PeriodicFrame.kStatus3, 500,
+        PeriodicFrame.kStatus4, 500,
+        PeriodicFrame.kStatus5, 500,
+        PeriodicFrame.kStatus6, 500);
+    public static final Map<PeriodicFrame, Integer> kArmFollowerStatusFramePeriods = Map.of(
+        PeriodicFrame.kStatus0, 100,
+        PeriodicFrame.kStatus1, 100,
+        PeriodicFrame.kStatus2, 500,
+        PeriodicFrame.kStatus3, 500,
+        PeriodicFrame.kStatus4, 500,
+        PeriodicFrame.kStatus5, 500,
+        PeriodicFrame.kStatus6, 500);
+    // The spool reads its selected sensor from Status_2_Feedback0; 255 ms is the slowest period.
+    public static final Map<StatusFrameEnhanced, Integer> kSpoolStatusFramePeriods = Map.of(
+        StatusFrameEnhanced.Status_1_General, 20,
+        StatusFrameEnhanced.Status_2_Feedback0, 20,
+        StatusFrameEnhanced.Status_3_Quadrature, 255,
+        StatusFrameEnhanced.Status_4_AinTempVbat, 255,
+        StatusFrameEnhanced.Status_8_PulseWidth, 255,
+        StatusFrameEnhanced.Status_10_MotionMagic, 255,
+        StatusFrameEnhanced.Status_12_Feedback1, 255,
+        StatusFrameEnhanced.Status_13_Base_PIDF0, 255,
+        StatusFrameEnhanced.Status_14_Turn_PIDF1, 255);
 
     public enum armPosition {
       START, INTAKE, LOW, HIGH, EXTRA_HIGH;
@@ -210,27 +405,47 @@ public final class Constants {
     public static final double kMountAngleDegrees = 50.000000;
     public static final double kTargetHeightMeters = Units.inchesToMeters(104.0 - 1.0);
 
+    // LimelightAim heading controller, in volts per degree of heading error
     public static final double kLimelightP = 0.45;
     public static final double kLimelightD = 0.0;
-
-    public static InterpolatingTreeMap<InterpolatingDouble, InterpolatingDouble> kShooterRPMMap =
-        new InterpolatingTreeMap<>();
+    public static final double kAimToleranceDegrees = 1.0;
+    public static final double kMaxAimVolts = 6.0;
+
+    // Standard deviations of Limelight botpose measurements (x and y in meters, heading in radians)
+    public static final Matrix<N3, N1> kVisionStdDevs = VecBuilder.fill(0.9, 0.9, 0.9);
+    // Measurements further than this many standard deviations from the estimate are rejected, once
+    // this many consecutive measurements have agreed with it. This many consecutive rejected
+    // measurements that agree with each other reopen the gate.
+    public static final double kVisionOutlierSigma = 2.0;
+    public static final int kVisionConvergenceFrames = 5;
+    public static final int kVisionRecoveryFrames = 10;
+
+    // Limelight frames held between loops; the camera sends at most a few per loop
+    public static final int kSampleBufferCapacity = 16;
+    // The target is considered lost when no frame was captured for this long
+    public static final double kFrameTimeoutSeconds = 0.25;
+
+    // Deploy directory CSV with shooter RPM by distance and horizontal angle. The committed values
+    // are placeholders, so the file is not used until it has been calibrated.
+    public static final String kShooterRPMGridFile = "shooter_rpm.csv";
+    public static final boolean kShooterRPMGridCalibrated = false;
+
+    public static InterpolatingDoubleTable kShooterRPMMap = new InterpolatingDoubleTable();
 
     static {
-      kShooterRPMMap.put(new InterpolatingDouble(0.97), new InterpolatingDouble(1450.0));
-      kShooterRPMMap.put(new InterpolatingDouble(1.72), new InterpolatingDouble(1600.0));
-      kShooterRPMMap.put(new InterpolatingDouble(2.04), new InterpolatingDouble(1700.0));
-      kShooterRPMMap.put(new InterpolatingDouble(2.60), new InterpolatingDouble(1800.0));
+      kShooterRPMMap.put(0.97, 1450.0);
+      kShooterRPMMap.put(1.72, 1600.0);
+      kShooterRPMMap.put(2.04, 1700.0);
+      kShooterRPMMap.put(2.60, 1800.0);
     }
 
-    public static InterpolatingTreeMap<InterpolatingDouble, InterpolatingDouble> kHoodMap =
-        new InterpolatingTreeMap<>();
+    public static InterpolatingDoubleTable kHoodMap = new InterpolatingDoubleTable();
 
     static {
-      kHoodMap.put(new InterpolatingDouble(0.97), new InterpolatingDouble(8.0));
-      kHoodMap.put(new InterpolatingDouble(1.72), new InterpolatingDouble(20.0));
-      kHoodMap.put(new InterpolatingDouble(2.04), new InterpolatingDouble(19.7));
-      kHoodMap.put(new InterpolatingDouble(2.66), new InterpolatingDouble(24.6));
+      kHoodMap.put(0.97, 8.0);
+      kHoodMap.put(1.72, 20.0);
+      kHoodMap.put(2.04, 19.7);
+      kHoodMap.put(2.66, 24.6);
     }
   }
 }
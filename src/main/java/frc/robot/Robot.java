@@ -4,9 +4,18 @@
 
 package frc.robot;
 
+import edu.wpi.first.wpilibj.DataLogManager;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.LoggingConstants;
+import frc.robot.Constants.TelemetryConstants;
+import frc.utils.AllocationMonitor;
+import frc.utils.LoopProfiler;
+import frc.utils.OutputCoalescer;
+import frc.utils.SignalLogger;
+import frc.utils.Telemetry;
+import frc.utils.TunableNumber;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -19,15 +28,32 @@ public class Robot extends TimedRobot {
 
   private RobotContainer m_robotContainer;
 
+  private final LoopProfiler.Section m_readSensorsProfile = LoopProfiler.addSection("readSensors");
+
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
    */
   @Override
   public void robotInit() {
+    long start = System.nanoTime();
+    if (LoggingConstants.kSignalLoggingEnabled) {
+      SignalLogger.start(
+          LoggingConstants.kFlushPeriodSeconds,
+          LoggingConstants.kMaxFileBytes,
+          LoggingConstants.kMaxFiles,
+          LoggingConstants.kMinFreeBytes);
+    }
+
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
+    LoopProfiler.install(CommandScheduler.getInstance(), TelemetryConstants.kLoopOverrunSeconds);
+    if (TelemetryConstants.kAllocationMonitorEnabled) {
+      AllocationMonitor.start(TelemetryConstants.kAllocationBudgetBytesPerLoop);
+    }
+    Telemetry.start(TelemetryConstants.kPublishPeriodSeconds);
+    DataLogManager.log("Robot ready in " + (System.nanoTime() - start) / 1_000_000 + " ms");
   }
 
   /**
@@ -39,11 +65,27 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    LoopProfiler.beginCycle();
+    SignalLogger.beginCycle();
+
+    // Read every sensor once, before any subsystem or command uses it this loop.
+    m_readSensorsProfile.start();
+    m_robotContainer.readSensors();
+    m_readSensorsProfile.stop();
+
+    // Apply dashboard tuning here, so devices are only reconfigured from this thread.
+    TunableNumber.applyChanges();
+
     // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
     CommandScheduler.getInstance().run();
+
+    OutputCoalescer.publishStatistics();
+    LoopProfiler.endCycle();
+    AllocationMonitor.endCycle(LoopProfiler.getCycleStartNanos(), LoopProfiler.didCycleOverrun());
+    Telemetry.commit();
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
@@ -7,6 +7,7 @@ package frc.robot;
 import frc.robot.Constants.AutoConstants;
 import frc.robot.Constants.ControllerConstants;
 import frc.robot.Constants.DriveConstants;
+import frc.robot.commands.ArmCharacterization;
 import frc.robot.commands.Autos;
 import frc.robot.commands.ExampleCommand;
 import frc.robot.commands.LimelightAim;
@@ -15,6 +16,9 @@ import frc.robot.subsystems.ExampleSubsystem;
 import frc.robot.subsystems.LimelightManager;
 import frc.robot.subsystems.PneumaticGrabber;
 import frc.robot.subsystems.DriveSubsystem;
+import frc.utils.DeviceConfigurator;
+import frc.utils.SignalLogger;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
@@ -67,7 +71,8 @@ public class RobotContainer {
 
   private final Arm m_arm = new Arm();
 
-  private final LimelightManager m_limelight = new LimelightManager();
+  private final LimelightManager m_limelight =
+      new LimelightManager(m_robotDrive::addVisionMeasurement);
 
   // Replace with CommandPS4Controller or CommandJoystick if needed
   private final CommandXboxController m_navigatorController =
@@ -75,9 +80,21 @@ public class RobotContainer {
 
   private final CommandXboxController m_operatorController =
       new CommandXboxController(ControllerConstants.kOperatorPort);
+
+  // Driver inputs, logged every loop as [six axes, button bitmask, POV]
+  private static final int kControllerAxes = 6;
+  private final SignalLogger.Channel m_navigatorLog =
+      SignalLogger.addChannel("Driver/Navigator", kControllerAxes + 2);
+  private final SignalLogger.Channel m_operatorLog =
+      SignalLogger.addChannel("Driver/Operator", kControllerAxes + 2);
       
   /** The container for the robot. Contains subsystems, OI devices, and commands. */
   public RobotContainer() {
+    // Wait for the motor controllers the subsystems started configuring, then start odometry
+    // from readings taken with the final encoder conversion factors
+    DeviceConfigurator.awaitAll();
+    m_robotDrive.resetOdometry(new Pose2d());
+    readSensors();
 
     m_robotDrive.setDefaultCommand(
         new RunCommand(
@@ -97,6 +114,30 @@ public class RobotContainer {
     configureBindings();
   }
 
+  /**
+   * Reads every subsystem's sensors once for this loop. Called at the start of each robot periodic,
+   * before the scheduler runs, so that subsystems and commands share one time-consistent set of
+   * readings and each sensor is only read once per loop.
+   */
+  public void readSensors() {
+    m_robotDrive.readSensors();
+    m_arm.readSensors();
+    m_limelight.readSensors();
+
+    logController(m_navigatorLog, m_navigatorController, ControllerConstants.kNavigatorPort);
+    logController(m_operatorLog, m_operatorController, ControllerConstants.kOperatorPort);
+  }
+
+  private static void logController(
+      SignalLogger.Channel channel, CommandXboxController controller, int port) {
+    for (int axis = 0; axis < kControllerAxes; axis++) {
+      channel.set(axis, controller.getRawAxis(axis));
+    }
+    channel.set(kControllerAxes, DriverStation.getStickButtons(port));
+    channel.set(kControllerAxes + 1, controller.getHID().getPOV());
+    channel.append();
+  }
+
   /**
    * Use this method to define your trigger->command mappings. Triggers can be created via the
    * {@link Trigger#Trigger(java.util.function.BooleanSupplier)} constructor with an arbitrary
@@ -119,6 +160,16 @@ public class RobotContainer {
     m_operatorController.rightBumper().onTrue(m_arm.decreaseArmAngle());
     m_operatorController.back().onTrue(m_arm.resetArmAngle());
 
+    // Arm feedforward characterization, only available in test mode
+    m_operatorController.povUp().and(DriverStation::isTest)
+        .whileTrue(new ArmCharacterization(m_arm, true, true));
+    m_operatorController.povDown().and(DriverStation::isTest)
+        .whileTrue(new ArmCharacterization(m_arm, true, false));
+    m_operatorController.povRight().and(DriverStation::isTest)
+        .whileTrue(new ArmCharacterization(m_arm, false, true));
+    m_operatorController.povLeft().and(DriverStation::isTest)
+        .whileTrue(new ArmCharacterization(m_arm, false, false));
+
     m_operatorController.rightTrigger().onTrue(m_pneumaticGrabber.openGrabber());
     m_operatorController.leftTrigger().onTrue(m_pneumaticGrabber.closeGrabber());
     m_navigatorController.rightTrigger().onTrue(m_robotDrive.setSpeedPercent(0.55));
@@ -0,0 +1,84 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants.ArmConstants;
+import frc.robot.subsystems.Arm;
+
+/**
+ * Drives the arm open loop for feedforward characterization and logs the response to the DataLog,
+ * so kS, kG, kV and kA can be fit offline.
+ *
+ * <p>A quasistatic test ramps the voltage slowly, so acceleration is negligible; a dynamic test
+ * applies a voltage step. Each loop logs [time, volts, angle, velocity] to an entry under
+ * "Arm/Characterization", with the arm angle in radians above horizontal. The test stops when the arm reaches the
+ * end of its preset range.
+ */
+public class ArmCharacterization extends CommandBase {
+  private final Arm m_arm;
+  private final boolean m_quasistatic;
+  private final double m_direction;
+
+  private final Timer m_timer = new Timer();
+  private final double[] m_sample = new double[4];
+  private DoubleArrayLogEntry m_log;
+
+  /**
+   * Creates a new ArmCharacterization.
+   *
+   * @param arm The arm to characterize.
+   * @param quasistatic Whether to ramp the voltage (quasistatic) rather than step it (dynamic).
+   * @param forward Whether to raise the arm rather than lower it.
+   */
+  public ArmCharacterization(Arm arm, boolean quasistatic, boolean forward) {
+    m_arm = arm;
+    m_quasistatic = quasistatic;
+    m_direction = forward ? 1 : -1;
+    addRequirements(arm);
+  }
+
+  @Override
+  public void initialize() {
+    m_log = new DoubleArrayLogEntry(DataLogManager.getLog(),
+        "Arm/Characterization/" + (m_quasistatic ? "Quasistatic" : "Dynamic")
+            + (m_direction > 0 ? "Forward" : "Reverse"));
+    m_timer.reset();
+    m_timer.start();
+  }
+
+  @Override
+  public void execute() {
+    double time = m_timer.get();
+    double volts = m_direction * (m_quasistatic
+        ? ArmConstants.kArmCharacterizationRampVoltsPerSecond * time
+        : ArmConstants.kArmCharacterizationStepVolts);
+    m_arm.setCharacterizationVoltage(volts);
+
+    m_sample[0] = time;
+    m_sample[1] = volts;
+    m_sample[2] = m_arm.getAngleRadians();
+    m_sample[3] = m_arm.getAngularVelocityRadiansPerSecond();
+    m_log.append(m_sample);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    m_arm.stopCharacterization();
+    m_log.finish();
+  }
+
+  @Override
+  public boolean isFinished() {
+    // Stop at the ends of the preset range; the arm leader encoder counts down as the arm raises
+    double rotations = m_arm.getArmRotations();
+    return m_direction > 0
+        ? rotations <= ArmConstants.kExtraHighRotations
+        : rotations >= ArmConstants.kStartRotations;
+  }
+}
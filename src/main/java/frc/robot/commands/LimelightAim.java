@@ -4,34 +4,86 @@
 
 package frc.robot.commands;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
-import edu.wpi.first.wpilibj2.command.PIDCommand;
+import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.Constants.LimelightConstants;
 import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.LimelightManager;
 
-// NOTE:  Consider using this command inline, rather than writing a subclass.  For more
-// information, see:
-// https://docs.wpilib.org/en/stable/docs/software/commandbased/convenience-features.html
-public class LimelightAim extends PIDCommand {
+/**
+ * Turns the robot to face the Limelight target.
+ *
+ * <p>The horizontal error is tens of milliseconds old by the time it arrives, so it is not used as
+ * the measurement directly. Instead, each new frame is turned into an absolute heading target: the
+ * raw gyro angle when the image was captured, from the drive's gyro history, minus the error. The
+ * robot then tracks that heading using its current raw gyro angle, which is fresh every loop.
+ * Both come from the gyro alone, so vision corrections to the pose never shift one against the
+ * other.
+ */
+public class LimelightAim extends CommandBase {
+  private final LimelightManager m_limelight;
+  private final DriveSubsystem m_driveSubsystem;
+  private final PIDController m_controller =
+      new PIDController(LimelightConstants.kLimelightP, 0, LimelightConstants.kLimelightD);
+
+  private double m_lastTargetTimestamp = Double.NaN;
+  private boolean m_hasHeadingTarget = false;
+
   /** Creates a new LimelightAim. */
   public LimelightAim(LimelightManager limelight, DriveSubsystem driveSubsystem) {
-    super(
-        // The controller that the command will use
-        new PIDController(LimelightConstants.kLimelightP, 0, LimelightConstants.kLimelightD),
-        // This should return the measurement
-        () -> limelight.getHorizontalErrorDegrees(),
-        // This should return the setpoint (can also be a constant)
-        () -> 0.0,
-        // This uses the output
-        output -> {
-          driveSubsystem.setInvertedX(output);
-        });
+    m_limelight = limelight;
+    m_driveSubsystem = driveSubsystem;
+    m_controller.enableContinuousInput(-180, 180);
+    m_controller.setTolerance(LimelightConstants.kAimToleranceDegrees);
+
     // Use addRequirements() here to declare subsystem dependencies.
     addRequirements(driveSubsystem);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    m_controller.reset();
+    m_lastTargetTimestamp = Double.NaN;
+    m_hasHeadingTarget = false;
+  }
 
-    // Configure additional PID options by calling `getController` here.
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    // Turn each new frame into a field heading, using the heading when the image was captured
+    double targetTimestamp = m_limelight.getTargetTimestampSeconds();
+    if (m_limelight.hasTarget() && targetTimestamp != m_lastTargetTimestamp) {
+      m_lastTargetTimestamp = targetTimestamp;
+      double headingAtCapture = m_driveSubsystem.getGyroAngleDegreesAt(targetTimestamp);
+      m_controller.setSetpoint(headingAtCapture - m_limelight.getHorizontalErrorDegrees());
+      m_hasHeadingTarget = true;
+    }
+
+    if (!m_hasHeadingTarget) {
+      m_driveSubsystem.setInvertedX(0.0);
+      return;
+    }
+
+    double output = m_controller.calculate(m_driveSubsystem.getGyroAngleDegrees());
+    m_driveSubsystem.setInvertedX(MathUtil.clamp(
+        output, -LimelightConstants.kMaxAimVolts, LimelightConstants.kMaxAimVolts));
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    m_driveSubsystem.setInvertedX(0.0);
+  }
 
+  /**
+   * Returns whether the robot is facing the target.
+   *
+   * @return true once the heading is within tolerance of the latest vision heading target.
+   */
+  public boolean isAligned() {
+    return m_hasHeadingTarget && m_controller.atSetpoint();
   }
 
   // Returns true when the command should end.
@@ -11,16 +11,31 @@ import com.revrobotics.CANSparkMax;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.SparkMaxPIDController.ArbFFUnits;
 import com.revrobotics.CANSparkMax.IdleMode;
 
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.ArmFeedforward;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.ArmConstants;
+import frc.robot.Constants.CANConstants;
 import frc.robot.Constants.GrabberConstants;
+import frc.robot.Constants.TelemetryConstants;
+import frc.robot.Constants.TuningConstants;
 import frc.robot.Constants.ArmConstants.armPosition;
+import frc.utils.ArmTrajectoryPlanner;
+import frc.utils.DeviceConfigurator;
+import frc.utils.LoopProfiler;
 import frc.utils.MagEncoderUtil;
+import frc.utils.OutputCoalescer;
+import frc.utils.SignalLogger;
+import frc.utils.StatusFrameUtil;
+import frc.utils.Telemetry;
+import frc.utils.TunableNumber;
 
 public class Arm extends SubsystemBase {
   // Spark Max Motor Controller Object
@@ -35,17 +50,30 @@ public class Arm extends SubsystemBase {
   // Spark Max Relative Encoder Object
   private RelativeEncoder m_encoder = m_armMotorLeader.getEncoder();
 
-  // PID Coefficients
-  public double kP = ArmConstants.kP;
-  public double kD = ArmConstants.kD;
-  public double kFF = ArmConstants.kFF;
-  public double kMaxOutput = ArmConstants.kMaxOutput;
-  public double kMinOutput = ArmConstants.kMinOutput;
+  // PID Coefficients, tunable from the dashboard when tuning is enabled
+  private final TunableNumber m_p =
+      new TunableNumber("P Gain", ArmConstants.kP, TuningConstants.kTuningEnabled);
+  private final TunableNumber m_d =
+      new TunableNumber("D Gain", ArmConstants.kD, TuningConstants.kTuningEnabled);
+  private final TunableNumber m_ff =
+      new TunableNumber("Feed Forward", ArmConstants.kFF, TuningConstants.kTuningEnabled);
+  private final TunableNumber m_maxOutput =
+      new TunableNumber("Max Output", ArmConstants.kMaxOutput, TuningConstants.kTuningEnabled);
+  private final TunableNumber m_minOutput =
+      new TunableNumber("Min Output", ArmConstants.kMinOutput, TuningConstants.kTuningEnabled);
 
   private double m_rotationPosition = 0.0;
 
   private WPI_TalonSRX m_spoolSRX = new WPI_TalonSRX(ArmConstants.kSpoolMotorPort);
 
+  // Skip resending outputs that have not changed
+  private final OutputCoalescer m_armWrites = new OutputCoalescer(
+      "SPARK MAX " + ArmConstants.kArmMotorLeaderPort,
+      ArmConstants.kArmSetpointEpsilon, CANConstants.kOutputKeepAliveSeconds);
+  private final OutputCoalescer m_spoolWrites = new OutputCoalescer(
+      "Talon SRX " + ArmConstants.kSpoolMotorPort,
+      ArmConstants.kSpoolSetpointEpsilon, CANConstants.kOutputKeepAliveSeconds, false);
+
   private double m_openLoopPower = 0.2;
 
   private double m_targetSpoolAngle = 0;
@@ -54,44 +82,236 @@ public class Arm extends SubsystemBase {
 
   private armPosition m_armPosition = armPosition.START;
 
+  // Motion profile between presets. The setpoint starts at the arm's position on the first loop.
+  // The goal and setpoint are updated in place, and a profile is only built when the goal moves.
+  private final TrapezoidProfile.Constraints m_armConstraints = new TrapezoidProfile.Constraints(
+      ArmConstants.kArmMaxVelocityRotationsPerSecond,
+      ArmConstants.kArmMaxAccelerationRotationsPerSecondSquared);
+  private final TrapezoidProfile.State m_armGoal = new TrapezoidProfile.State();
+  private final TrapezoidProfile.State m_armSetpoint = new TrapezoidProfile.State();
+  private boolean m_hasArmSetpoint = false;
+  private TrapezoidProfile m_armProfile = null;
+  private double m_armProfileTime = 0;
+
+  // Coordinated rotation and extension moves between presets
+  private final ArmTrajectoryPlanner m_planner = new ArmTrajectoryPlanner(
+      m_armConstraints,
+      new TrapezoidProfile.Constraints(ArmConstants.kSpoolCruiseVelocity, ArmConstants.kSpoolAcceleration),
+      Arm::isAllowed,
+      ArmConstants.kSpoolMotorReverseLimit,
+      ArmConstants.kArmPlannerCheckSamples);
+  private final double[] m_planSample = new double[ArmTrajectoryPlanner.kSampleSize];
+  private armPosition m_plannedPosition = null;
+  private double m_planTime = 0;
+  private boolean m_followingPlan = false;
+  // Set when the planner refused the current preset; the arm holds until the next preset
+  private boolean m_holding = false;
+
+  private final ArmFeedforward m_armFeedforward = new ArmFeedforward(
+      ArmConstants.kArmS, ArmConstants.kArmG, ArmConstants.kArmV, ArmConstants.kArmA);
+  private final OutputCoalescer m_armFeedforwardWrites = new OutputCoalescer(
+      "SPARK MAX " + ArmConstants.kArmMotorLeaderPort + " FF",
+      ArmConstants.kArmFeedforwardEpsilon, CANConstants.kOutputKeepAliveSeconds);
+
+  // Open loop voltage while characterizing, NaN otherwise
+  private double m_characterizationVolts = Double.NaN;
+
+  // Hash of the follower settings configureFollower() saves to flash that the SPARK MAX cannot
+  // report back: which controller it follows, and inverted from it. Everything else configured on
+  // the arm SPARKS MAX is compared with the device's readback.
+  private static final int kFollowerConfigHash =
+      DeviceConfigurator.hash(ArmConstants.kArmMotorLeaderPort, true);
+
   private double m_spoolPosition;
 
   private double controllerInput;
 
+  private final LoopProfiler.Section m_profile = LoopProfiler.addSection("Arm.periodic");
+
+  // Binary log channels: [rotations, rotations per second, setpoint, goal] and
+  // [spool position, spool target]
+  private final SignalLogger.Channel m_rotationLog = SignalLogger.addChannel("Arm/Rotation", 4);
+  private final SignalLogger.Channel m_spoolLog = SignalLogger.addChannel("Arm/Spool", 2);
+
+  // Telemetry, published off the control thread
+  private final Telemetry.DoubleSignal m_rotationsSignal = Telemetry.addDouble("ROTATIONS");
+  private final Telemetry.DoubleSignal m_setpointSignal = Telemetry.addDouble("SetPoint");
+  private final Telemetry.DoubleSignal m_processVariableSignal = Telemetry.addDouble("ProcessVariable");
+  private final Telemetry.DoubleSignal m_spoolPositionSignal = Telemetry.addDouble("Spool Position");
+  private final Telemetry.DoubleSignal m_targetPositionSignal = Telemetry.addDouble("Target Position");
+  private final Telemetry.DoubleSignal m_spoolPositionRadSignal =
+      Telemetry.addDouble("Spool Position Rad", TelemetryConstants.kSlowSignalDecimation);
+  private final Telemetry.DoubleSignal m_openLoopPowerSignal =
+      Telemetry.addDouble("m_openLoopPower", TelemetryConstants.kSlowSignalDecimation);
+
+  // Sensor readings taken once per loop by readSensors()
+  private double m_armRotations;
+  private double m_armRotationsPerSecond;
+  private double m_spoolPositionNative;
+  private double m_spoolVelocityNative;
+
   /** Creates a new Arm */
   public Arm() {
-    m_armMotorLeader.restoreFactoryDefaults();
-    m_armMotorFollower.restoreFactoryDefaults();
-    m_armMotorFollower.setInverted(true);
-    m_armMotorLeader.setIdleMode(IdleMode.kBrake);
-    m_armMotorFollower.setIdleMode(IdleMode.kBrake);
-    m_armMotorFollower.follow(m_armMotorLeader, true);
+    // Configure the three motor controllers in the background, alongside every other device
+    DeviceConfigurator.submit("SPARK MAX " + ArmConstants.kArmMotorLeaderPort,
+        this::leaderConfigMatches, 0, this::configureLeader);
+    DeviceConfigurator.submit("SPARK MAX " + ArmConstants.kArmMotorFollowerPort,
+        this::followerConfigMatches, kFollowerConfigHash, this::configureFollower);
+    DeviceConfigurator.submit("Talon SRX " + ArmConstants.kSpoolMotorPort, this::configureSpool);
+
+    // Write tuned PID coefficients to the controller as they change on the dashboard. These run on
+    // the control thread, only in loops where a value changed.
+    // Resend the setpoint after each change, so the retuned loop is running on it
+    m_p.onChange(p -> {
+      m_armController.setP(p);
+      m_armWrites.invalidate();
+    });
+    m_d.onChange(d -> {
+      m_armController.setD(d);
+      m_armWrites.invalidate();
+    });
+    m_ff.onChange(ff -> {
+      m_armController.setFF(ff);
+      m_armWrites.invalidate();
+    });
+    m_maxOutput.onChange(max -> {
+      m_armController.setOutputRange(m_minOutput.get(), max);
+      m_armWrites.invalidate();
+    });
+    m_minOutput.onChange(min -> {
+      m_armController.setOutputRange(min, m_maxOutput.get());
+      m_armWrites.invalidate();
+    });
+  }
+
+  /**
+   * Returns whether the arm leader SPARK MAX already holds the settings configureLeader() applies.
+   *
+   * @return Whether the readback matches.
+   */
+  private boolean leaderConfigMatches() {
+    return m_armMotorLeader.getIdleMode() == IdleMode.kBrake
+        && !m_armMotorLeader.getInverted()
+        && !m_armMotorLeader.isFollower()
+        && DeviceConfigurator.matches(m_armController.getP(), ArmConstants.kP)
+        && DeviceConfigurator.matches(m_armController.getD(), ArmConstants.kD)
+        && DeviceConfigurator.matches(m_armController.getFF(), ArmConstants.kFF)
+        && DeviceConfigurator.matches(m_armController.getOutputMin(), ArmConstants.kMinOutput)
+        && DeviceConfigurator.matches(m_armController.getOutputMax(), ArmConstants.kMaxOutput);
+  }
+
+  /**
+   * Returns whether the arm follower SPARK MAX already holds the settings configureFollower()
+   * applies, as far as it can report them.
+   *
+   * @return Whether the readback matches.
+   */
+  private boolean followerConfigMatches() {
+    return m_armMotorFollower.getIdleMode() == IdleMode.kBrake && m_armMotorFollower.isFollower();
+  }
+
+  /**
+   * Configures the arm leader SPARK MAX. Runs on a {@link DeviceConfigurator} thread.
+   *
+   * @param persist Whether to save the configuration to flash.
+   * @return Whether every configuration call succeeded.
+   */
+  private boolean configureLeader(boolean persist) {
+    String name = "SPARK MAX " + ArmConstants.kArmMotorLeaderPort;
+    boolean ok = true;
+    ok &= DeviceConfigurator.checkRev(name, "restore factory defaults", m_armMotorLeader::restoreFactoryDefaults);
+    ok &= DeviceConfigurator.checkRev(name, "set idle mode", () -> m_armMotorLeader.setIdleMode(IdleMode.kBrake));
 
     // Set PID coefficients
-    m_armController.setP(kP);
-    m_armController.setD(kD);
-    m_armController.setFF(kFF);
-    m_armController.setOutputRange(kMinOutput, kMaxOutput);
-
-    // display PID coefficients on SmartDashboard
-    SmartDashboard.putNumber("P Gain", kP);
-    SmartDashboard.putNumber("D Gain", kD);
-    SmartDashboard.putNumber("Feed Forward", kFF);
-    SmartDashboard.putNumber("Max Output", kMaxOutput);
-    SmartDashboard.putNumber("Min Output", kMinOutput);
-    SmartDashboard.putNumber("Arm Angle", 0);
-    SmartDashboard.putNumber("Set Rotations", 0);
-
-    m_spoolSRX.configFactoryDefault();
-    m_spoolSRX.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative);
+    ok &= DeviceConfigurator.checkRev(name, "set P", () -> m_armController.setP(ArmConstants.kP));
+    ok &= DeviceConfigurator.checkRev(name, "set D", () -> m_armController.setD(ArmConstants.kD));
+    ok &= DeviceConfigurator.checkRev(name, "set FF", () -> m_armController.setFF(ArmConstants.kFF));
+    ok &= DeviceConfigurator.checkRev(name, "set output range",
+        () -> m_armController.setOutputRange(ArmConstants.kMinOutput, ArmConstants.kMaxOutput));
+
+    StatusFrameUtil.apply(m_armMotorLeader, ArmConstants.kArmLeaderStatusFramePeriods);
+    if (persist) {
+      ok &= DeviceConfigurator.checkRev(name, "burn flash", m_armMotorLeader::burnFlash);
+    }
+    // The factory reset dropped any setpoint sent before
+    m_armWrites.invalidate();
+    m_armFeedforwardWrites.invalidate();
+    return ok;
+  }
+
+  /**
+   * Configures the arm follower SPARK MAX. Runs on a {@link DeviceConfigurator} thread.
+   *
+   * @param persist Whether to save the configuration to flash.
+   * @return Whether every configuration call succeeded.
+   */
+  private boolean configureFollower(boolean persist) {
+    String name = "SPARK MAX " + ArmConstants.kArmMotorFollowerPort;
+    boolean ok = true;
+    ok &= DeviceConfigurator.checkRev(name, "restore factory defaults", m_armMotorFollower::restoreFactoryDefaults);
+    m_armMotorFollower.setInverted(true);
+    ok &= DeviceConfigurator.checkRev(name, "set idle mode", () -> m_armMotorFollower.setIdleMode(IdleMode.kBrake));
+    ok &= DeviceConfigurator.checkRev(name, "follow leader", () -> m_armMotorFollower.follow(m_armMotorLeader, true));
+
+    StatusFrameUtil.apply(m_armMotorFollower, ArmConstants.kArmFollowerStatusFramePeriods);
+    if (persist) {
+      ok &= DeviceConfigurator.checkRev(name, "burn flash", m_armMotorFollower::burnFlash);
+    }
+    return ok;
+  }
+
+  /**
+   * Configures the spool Talon SRX. Runs on a {@link DeviceConfigurator} thread. Talon settings
+   * are stored as they are set, so there is nothing extra to persist.
+   *
+   * @param persist Unused.
+   * @return Whether every configuration call succeeded.
+   */
+  private boolean configureSpool(boolean persist) {
+    String name = "Talon SRX " + ArmConstants.kSpoolMotorPort;
+    boolean ok = true;
+    ok &= DeviceConfigurator.checkCtre(name, "restore factory defaults", m_spoolSRX::configFactoryDefault);
+    ok &= DeviceConfigurator.checkCtre(name, "set feedback sensor",
+        () -> m_spoolSRX.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative));
     m_spoolSRX.setSensorPhase(false);
     m_spoolSRX.setInverted(true);
-    m_spoolSRX.configForwardSoftLimitThreshold(MagEncoderUtil.distanceToNativeUnits(ArmConstants.kSpoolMotorForwardLimit, 1, 30));
-    m_spoolSRX.configForwardSoftLimitEnable(true);
-    m_spoolSRX.configReverseSoftLimitThreshold(MagEncoderUtil.distanceToNativeUnits(ArmConstants.kSpoolMotorReverseLimit, 1, 30));
-    m_spoolSRX.configReverseSoftLimitEnable(true);
-    m_spoolSRX.setSelectedSensorPosition(ArmConstants.kInitialSpoolPosition);
-    // m_spoolMotor.config_kP(0, ArmConstants.kSpoolP);
+    ok &= DeviceConfigurator.checkCtre(name, "set forward soft limit",
+        () -> m_spoolSRX.configForwardSoftLimitThreshold(MagEncoderUtil.distanceToNativeUnits(ArmConstants.kSpoolMotorForwardLimit, 1, ArmConstants.kSpoolGearing)));
+    ok &= DeviceConfigurator.checkCtre(name, "enable forward soft limit",
+        () -> m_spoolSRX.configForwardSoftLimitEnable(true));
+    ok &= DeviceConfigurator.checkCtre(name, "set reverse soft limit",
+        () -> m_spoolSRX.configReverseSoftLimitThreshold(MagEncoderUtil.distanceToNativeUnits(ArmConstants.kSpoolMotorReverseLimit, 1, ArmConstants.kSpoolGearing)));
+    ok &= DeviceConfigurator.checkCtre(name, "enable reverse soft limit",
+        () -> m_spoolSRX.configReverseSoftLimitEnable(true));
+    ok &= DeviceConfigurator.checkCtre(name, "set initial position",
+        () -> m_spoolSRX.setSelectedSensorPosition(ArmConstants.kInitialSpoolPosition));
+
+    // Motion Magic gains and constraints, in slot 0
+    ok &= DeviceConfigurator.checkCtre(name, "set P", () -> m_spoolSRX.config_kP(0, ArmConstants.kSpoolP));
+    ok &= DeviceConfigurator.checkCtre(name, "set D", () -> m_spoolSRX.config_kD(0, ArmConstants.kSpoolD));
+    ok &= DeviceConfigurator.checkCtre(name, "set F", () -> m_spoolSRX.config_kF(0, ArmConstants.kSpoolF));
+    ok &= DeviceConfigurator.checkCtre(name, "set cruise velocity",
+        () -> m_spoolSRX.configMotionCruiseVelocity(MagEncoderUtil.velocityToNativeUnits(
+            ArmConstants.kSpoolCruiseVelocity, 1, ArmConstants.kSpoolGearing)));
+    ok &= DeviceConfigurator.checkCtre(name, "set acceleration",
+        () -> m_spoolSRX.configMotionAcceleration(MagEncoderUtil.velocityToNativeUnits(
+            ArmConstants.kSpoolAcceleration, 1, ArmConstants.kSpoolGearing)));
+    m_spoolSRX.selectProfileSlot(0, 0);
+    StatusFrameUtil.apply(m_spoolSRX, ArmConstants.kSpoolStatusFramePeriods);
+    // The factory reset dropped any output sent before
+    m_spoolWrites.invalidate();
+    return ok;
+  }
+
+  /**
+   * Reads the arm encoder and spool sensor once for this loop. Must be called at the start of each
+   * loop, before any commands run; every other method uses these readings until the next call.
+   */
+  public void readSensors() {
+    m_armRotations = m_encoder.getPosition();
+    m_armRotationsPerSecond = m_encoder.getVelocity() / 60;
+    m_spoolPositionNative = m_spoolSRX.getSelectedSensorPosition();
+    m_spoolVelocityNative = m_spoolSRX.getSelectedSensorVelocity();
   }
 
   public CommandBase set(double percentPower) {
@@ -102,13 +322,11 @@ public class Arm extends SubsystemBase {
   }
 
   public double getPositionDegrees() {
-    return MagEncoderUtil.nativeUnitsToDistance(
-        m_spoolSRX.getSelectedSensorPosition(), 1, 30);
+    return MagEncoderUtil.nativeUnitsToDistance(m_spoolPositionNative, 1, ArmConstants.kSpoolGearing);
   }
 
   public double getVelocityDegreesPerSec() {
-    return MagEncoderUtil.nativeUnitsToVelocity(
-        m_spoolSRX.getSelectedSensorVelocity(),1, 30);
+    return MagEncoderUtil.nativeUnitsToVelocity(m_spoolVelocityNative, 1, ArmConstants.kSpoolGearing);
   }
 
   public void setTargetPosition(double degrees) {
@@ -116,59 +334,304 @@ public class Arm extends SubsystemBase {
   }
 
   public boolean atTargetPosition() {
-    return Math.abs(m_targetSpoolAngle - getPositionDegrees()) < 1;
+    return Math.abs(m_targetSpoolAngle - getPositionDegrees()) < ArmConstants.kSpoolToleranceRotations;
   }
 
   @Override
   public void periodic() {
-    // read PID coefficients from SmartDashboard
-    double p = SmartDashboard.getNumber("P Gain", 0);
-    double d = SmartDashboard.getNumber("D Gain", 0);
-    double ff = SmartDashboard.getNumber("Feed Forward", 0);
-    double max = SmartDashboard.getNumber("Max Output", 0);
-    double min = SmartDashboard.getNumber("Min Output", 0);
-    double armAngle = SmartDashboard.getNumber("Arm Angle", 0);
-    double rotations = SmartDashboard.getNumber("Set Rotations", 0);
-
-    if (m_armPosition == armPosition.START)
-      rotations = -3;
-    if (m_armPosition == armPosition.INTAKE)
-      rotations = -6 + controllerInput * 3.5;
-    if (m_armPosition == armPosition.LOW)
-      rotations = -15;
-    if (m_armPosition == armPosition.HIGH)
-      rotations = -17;
-    if (m_armPosition == armPosition.EXTRA_HIGH)
-      rotations = -20;
-    
-    SmartDashboard.putNumber("ROTATIONS", rotations);
-
-    // if PID coefficients on SmartDashboard have changed, write new values to controller
-    if((p != kP)) { m_armController.setP(p); kP = p; }
-    if((d != kD)) { m_armController.setD(d); kD = d; }
-    if((ff != kFF)) { m_armController.setFF(ff); kFF = ff; }
-    if((max != kMaxOutput) || (min != kMinOutput)) { 
-      m_armController.setOutputRange(min, max);
-      kMinOutput = min; kMaxOutput = max;
-    }
+    m_profile.start();
+    double rotations = getGoalRotations();
+    m_rotationsSignal.set(rotations);
+
+    if (!Double.isNaN(m_characterizationVolts)) {
+      // Open loop for characterization; restart the profile from wherever the arm ends up
+      m_hasArmSetpoint = false;
+      if (m_armWrites.shouldWrite(m_characterizationVolts, CANSparkMax.ControlType.kVoltage)) {
+        m_armController.setReference(m_characterizationVolts, CANSparkMax.ControlType.kVoltage);
+      }
+    } else {
+      if (!m_hasArmSetpoint) {
+        setState(m_armSetpoint, m_armRotations, 0);
+        m_hasArmSetpoint = true;
+        m_armProfile = null;
+      }
+      double previousVelocity = m_armSetpoint.velocity;
+
+      // A new preset gets a coordinated rotation and extension plan from where the arm is now,
+      // starting at the current setpoint velocities so a preset pressed mid-move does not stop the
+      // arm dead. A preset that cannot be reached inside the envelope is refused, and the arm comes
+      // to rest and holds.
+      if (m_armPosition != m_plannedPosition) {
+        double extensionVelocity =
+            m_followingPlan ? m_planSample[ArmTrajectoryPlanner.kExtensionVelocityIndex] : 0;
+        m_plannedPosition = m_armPosition;
+        m_holding = !m_planner.plan(
+            m_armSetpoint.position, m_armSetpoint.velocity,
+            getPositionDegrees(), extensionVelocity,
+            rotations, getGoalExtension());
+        if (m_holding) {
+          DriverStation.reportWarning(
+              "Arm: refusing move to " + m_armPosition + ", it would leave the safe envelope", false);
+          m_planner.sample(m_planner.getTotalTime(), m_planSample);
+          setState(m_armGoal, m_planSample[ArmTrajectoryPlanner.kRotationIndex], 0);
+          m_armProfile = null;
+        }
+        m_planTime = 0;
+        m_followingPlan = true;
+      }
+
+      // The goal moves with the operator's stick at INTAKE, but never outside the envelope
+      if (!m_holding
+          && m_armGoal.position != rotations
+          && isAllowed(rotations, m_targetSpoolAngle)) {
+        setState(m_armGoal, rotations, 0);
+        m_armProfile = null;
+      }
 
-    m_armController.setReference(rotations, CANSparkMax.ControlType.kPosition);
-    
-    SmartDashboard.putNumber("SetPoint", rotations);
-    SmartDashboard.putNumber("ProcessVariable", m_encoder.getPosition());
-
-    
-    SmartDashboard.putNumber("Spool Position", getPositionDegrees());
-    SmartDashboard.putNumber("Target Position", m_targetSpoolAngle);
-    SmartDashboard.putNumber("Spool Position Rad", Units.degreesToRadians(getPositionDegrees()));
-
-    SmartDashboard.putNumber("m_openLoopPower", m_openLoopPower);
-      if (Math.abs(m_openLoopPower) > 0.25 && (!(m_armPosition == armPosition.START && m_openLoopPower > 0))) {
-        m_spoolSRX.set((m_openLoopPower > 0 ? 1 : -1) * 0.9);
-      } else {
-        m_spoolSRX.set(0);
+      if (m_followingPlan) {
+        // Follow the plan with both axes. The spool's Motion Magic tracks the planned extension,
+        // which never moves faster than Motion Magic's own limits.
+        m_planTime += ArmConstants.kDt;
+        m_planner.sample(m_planTime, m_planSample);
+        setState(
+            m_armSetpoint,
+            m_planSample[ArmTrajectoryPlanner.kRotationIndex],
+            m_planSample[ArmTrajectoryPlanner.kRotationVelocityIndex]);
+        m_targetSpoolAngle = m_planSample[ArmTrajectoryPlanner.kExtensionIndex];
+        m_followingPlan = m_planTime < m_planner.getTotalTime();
+        m_armProfile = null;
+      } else if (m_armSetpoint.position != m_armGoal.position || m_armSetpoint.velocity != 0) {
+        // Step the profile towards the goal, which moves with the operator's stick at INTAKE.
+        // A new profile starts from the current setpoint whenever the goal moves. The SPARK MAX
+        // position loop tracks each setpoint.
+        if (m_armProfile == null) {
+          m_armProfile = new TrapezoidProfile(m_armConstraints, m_armGoal, m_armSetpoint);
+          m_armProfileTime = 0;
+        }
+        m_armProfileTime += ArmConstants.kDt;
+        TrapezoidProfile.State state = m_armProfile.calculate(m_armProfileTime);
+        setState(m_armSetpoint, state.position, state.velocity);
+      }
+
+      // Hold the arm up against gravity at its measured angle, and feed the profile's velocity and
+      // acceleration forward so the position loop only has to correct errors
+      double acceleration = (m_armSetpoint.velocity - previousVelocity) / ArmConstants.kDt;
+      double feedforward = m_armFeedforward.calculate(
+              getAngleRadians(),
+              m_armSetpoint.velocity * ArmConstants.kArmRadiansPerRotation,
+              acceleration * ArmConstants.kArmRadiansPerRotation)
+          * Math.signum(ArmConstants.kArmRadiansPerRotation);
+
+      // Resend when either the setpoint or the feedforward moved
+      if (m_armWrites.shouldWrite(m_armSetpoint.position, CANSparkMax.ControlType.kPosition)
+          | m_armFeedforwardWrites.shouldWrite(feedforward, ArbFFUnits.kVoltage)) {
+        m_armController.setReference(
+            m_armSetpoint.position, CANSparkMax.ControlType.kPosition, 0, feedforward, ArbFFUnits.kVoltage);
+      }
+      m_setpointSignal.set(m_armSetpoint.position);
+    }
+    m_processVariableSignal.set(m_armRotations);
+
+    double spoolPosition = getPositionDegrees();
+    m_spoolPositionSignal.set(spoolPosition);
+    m_targetPositionSignal.set(m_targetSpoolAngle);
+    m_spoolPositionRadSignal.set(Units.degreesToRadians(spoolPosition));
+
+    m_openLoopPowerSignal.set(m_openLoopPower);
+
+    boolean jogging = Math.abs(m_openLoopPower) > ArmConstants.kSpoolJogDeadband
+        && !(m_armPosition == armPosition.START && m_openLoopPower > 0);
+    if (ArmConstants.kSpoolClosedLoopTuned) {
+      // Each preset has its own extension; once the plan is done the operator can jog from there,
+      // as long as the tip stays inside the envelope
+      if (!m_followingPlan && jogging) {
+        double jogged = MathUtil.clamp(
+            m_targetSpoolAngle + Math.signum(m_openLoopPower) * ArmConstants.kSpoolJogRate * ArmConstants.kDt,
+            ArmConstants.kSpoolMotorReverseLimit, ArmConstants.kSpoolMotorForwardLimit);
+        if (isAllowed(m_armGoal.position, jogged)) {
+          m_targetSpoolAngle = jogged;
+        }
       }
+      m_targetSpoolAngle = MathUtil.clamp(
+          m_targetSpoolAngle, ArmConstants.kSpoolMotorReverseLimit, ArmConstants.kSpoolMotorForwardLimit);
+
+      // Motion Magic on the Talon moves the spool to the target along its own trapezoid profile
+      if (m_spoolWrites.shouldWrite(m_targetSpoolAngle, TalonSRXControlMode.MotionMagic)) {
+        m_spoolSRX.set(
+            TalonSRXControlMode.MotionMagic,
+            MagEncoderUtil.distanceToNativeUnits(m_targetSpoolAngle, 1, ArmConstants.kSpoolGearing));
+      }
+    } else {
+      // Motion Magic is not tuned yet, so the operator drives the spool open loop within the soft
+      // limits. The target follows the spool, so the envelope checks see where it really is.
+      m_targetSpoolAngle = spoolPosition;
+      double spoolOutput = jogging ? Math.signum(m_openLoopPower) * ArmConstants.kSpoolJogOutput : 0;
+      if (m_spoolWrites.shouldWrite(spoolOutput, TalonSRXControlMode.PercentOutput)) {
+        m_spoolSRX.set(TalonSRXControlMode.PercentOutput, spoolOutput);
+      }
+    }
+
+    m_rotationLog.set(0, m_armRotations);
+    m_rotationLog.set(1, m_armRotationsPerSecond);
+    m_rotationLog.set(2, m_hasArmSetpoint ? m_armSetpoint.position : Double.NaN);
+    m_rotationLog.set(3, rotations);
+    m_rotationLog.append();
+    m_spoolLog.set(0, spoolPosition);
+    m_spoolLog.set(1, m_targetSpoolAngle);
+    m_spoolLog.append();
+    m_profile.stop();
+  }
+
+  /**
+   * Returns whether the arm may move to a given rotation and extension. The envelope is only
+   * enforced once the arm geometry has been measured; until then every position is allowed, as it
+   * was before the envelope existed.
+   */
+  private static boolean isAllowed(double rotations, double extension) {
+    return !ArmConstants.kArmGeometryCalibrated || isInsideEnvelope(rotations, extension);
+  }
+
+  /**
+   * Returns whether the arm tip stays inside the safe envelope at a given rotation and extension:
+   * within the extension limit past the frame perimeter, under the height limit, off the floor and
+   * clear of the bumpers.
+   *
+   * @param rotations The arm leader encoder position, in rotations.
+   * @param extension The spool extension, in spool rotations.
+   * @return true if the arm may be at this position.
+   */
+  static boolean isInsideEnvelope(double rotations, double extension) {
+    double angle = (rotations - ArmConstants.kArmHorizontalRotations) * ArmConstants.kArmRadiansPerRotation;
+    double length = ArmConstants.kArmBaseLengthMeters + extension * ArmConstants.kArmMetersPerSpoolRotation;
+    double reach = length * Math.cos(angle);
+    double height = ArmConstants.kArmPivotHeightMeters + length * Math.sin(angle);
+
+    if (reach > ArmConstants.kArmPivotToFrameEdgeMeters + ArmConstants.kMaxExtensionPastFrameMeters
+        || height > ArmConstants.kMaxHeightMeters
+        || height < ArmConstants.kMinHeightMeters) {
+      return false;
+    }
+    boolean overBumper = reach > ArmConstants.kArmPivotToFrameEdgeMeters
+        && reach < ArmConstants.kArmPivotToFrameEdgeMeters + ArmConstants.kBumperDepthMeters;
+    return !(overBumper && height < ArmConstants.kBumperHeightMeters);
+  }
+
+  /** Updates a profile state in place, so periodic() allocates no states of its own. */
+  private static void setState(TrapezoidProfile.State state, double position, double velocity) {
+    state.position = position;
+    state.velocity = velocity;
+  }
+
+  /**
+   * Returns the spool extension to plan the current preset to. Until the spool's closed loop is
+   * tuned the spool only moves when jogged, so the plan leaves the extension where it is.
+   *
+   * @return The goal extension in spool rotations.
+   */
+  private double getGoalExtension() {
+    return ArmConstants.kSpoolClosedLoopTuned ? getPresetExtension(m_armPosition) : getPositionDegrees();
+  }
+
+  /**
+   * Returns the spool extension for a preset.
+   *
+   * @param position The arm preset.
+   * @return The spool extension in spool rotations.
+   */
+  private static double getPresetExtension(armPosition position) {
+    switch (position) {
+      case INTAKE:
+        return ArmConstants.kSpoolIntakeExtension;
+      case LOW:
+        return ArmConstants.kSpoolLowExtension;
+      case HIGH:
+        return ArmConstants.kSpoolHighExtension;
+      case EXTRA_HIGH:
+        return ArmConstants.kSpoolExtraHighExtension;
+      case START:
+      default:
+        return ArmConstants.kSpoolStartExtension;
+    }
+  }
+
+  /**
+   * Returns the arm rotation for the current preset.
+   *
+   * @return The goal position of the arm leader encoder, in rotations.
+   */
+  private double getGoalRotations() {
+    switch (m_armPosition) {
+      case INTAKE:
+        return ArmConstants.kIntakeRotations + controllerInput * ArmConstants.kIntakeManualRangeRotations;
+      case LOW:
+        return ArmConstants.kLowRotations;
+      case HIGH:
+        return ArmConstants.kHighRotations;
+      case EXTRA_HIGH:
+        return ArmConstants.kExtraHighRotations;
+      case START:
+      default:
+        return ArmConstants.kStartRotations;
+    }
+  }
+
+  /**
+   * Returns the arm leader encoder position as of the last {@link #readSensors()}.
+   *
+   * @return The arm position in motor rotations.
+   */
+  public double getArmRotations() {
+    return m_armRotations;
+  }
+
+  /**
+   * Returns the arm angle as of the last {@link #readSensors()}.
+   *
+   * @return The arm angle in radians, positive above horizontal.
+   */
+  public double getAngleRadians() {
+    return (m_armRotations - ArmConstants.kArmHorizontalRotations) * ArmConstants.kArmRadiansPerRotation;
+  }
+
+  /**
+   * Returns the arm angular velocity as of the last {@link #readSensors()}.
+   *
+   * @return The arm angular velocity in radians per second, positive when raising.
+   */
+  public double getAngularVelocityRadiansPerSecond() {
+    return m_armRotationsPerSecond * ArmConstants.kArmRadiansPerRotation;
+  }
+
+  /**
+   * Drives the arm open loop for characterization, until {@link #stopCharacterization()}.
+   *
+   * @param volts The voltage to apply, positive to raise the arm.
+   */
+  public void setCharacterizationVoltage(double volts) {
+    m_characterizationVolts = volts * Math.signum(ArmConstants.kArmRadiansPerRotation);
+  }
+
+  /**
+   * Returns the arm to profiled position control. The profile restarts from wherever the arm
+   * stopped and moves it back to the current preset.
+   */
+  public void stopCharacterization() {
+    m_characterizationVolts = Double.NaN;
+  }
 
+  /**
+   * Returns whether the arm has finished its profiled move to the current preset and settled
+   * there, so commands can sequence on it instead of waiting a fixed time. Never true while a
+   * refused move is holding the arm short of its preset.
+   *
+   * @return true if the arm is at its goal.
+   */
+  public boolean atGoal() {
+    return m_hasArmSetpoint
+        && !m_followingPlan
+        && !m_holding
+        && m_armSetpoint.position == m_armGoal.position
+        && Math.abs(m_armGoal.position - m_armRotations) < ArmConstants.kArmGoalToleranceRotations;
   }
 
   public CommandBase setAngle(double rotation) {
@@ -218,7 +681,7 @@ public class Arm extends SubsystemBase {
   public CommandBase resetArmAngle() {
     return runOnce(
         () -> {
-          if (m_spoolSRX.getSelectedSensorPosition() < .05)
+          if (m_spoolPositionNative < .05)
             m_armPosition = armPosition.START;
         });
   }
@@ -0,0 +1,65 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.Constants.DriveConstants;
+import frc.utils.FourModuleSwerveKinematics;
+import frc.utils.SwerveSetpointGenerator;
+
+/**
+ * Turns a drive request into module speeds and angles for {@link DriveSubsystem}: field-relative
+ * rotation, then either the setpoint generator or plain inverse kinematics with desaturation. It
+ * touches no hardware, so the same math can be benchmarked off the robot.
+ *
+ * <p>Modules are ordered to match {@link DriveConstants#kModuleKinematics}. The angles are kept
+ * between calls so the wheels hold their heading when the robot stops.
+ */
+class DriveSetpoints {
+  private final SwerveSetpointGenerator m_setpointGenerator = new SwerveSetpointGenerator(
+      DriveConstants.kModuleKinematics,
+      DriveConstants.kModuleX,
+      DriveConstants.kModuleY,
+      DriveConstants.kMaxSpeedMetersPerSecond,
+      DriveConstants.kMaxModuleAccelerationMetersPerSecondSquared,
+      DriveConstants.kMaxModuleSteeringRadiansPerSecond);
+
+  final double[] m_moduleSpeeds = new double[FourModuleSwerveKinematics.kNumModules];
+  final double[] m_moduleAngles = new double[FourModuleSwerveKinematics.kNumModules];
+  private final double[] m_chassisSpeeds = new double[3];
+
+  /**
+   * Computes the next module setpoints into {@link #m_moduleSpeeds} and {@link #m_moduleAngles}.
+   *
+   * @param xSpeed    Speed in the x direction, in meters per second.
+   * @param ySpeed    Speed in the y direction, in meters per second.
+   * @param rot       Angular rate of the robot, in radians per second.
+   * @param heading   The robot heading when the speeds are field-relative, or null when they are
+   *                  already robot-relative.
+   * @param rateLimit Whether to step towards the request as fast as the modules can accelerate
+   *                  and steer, rather than jumping to it.
+   * @param dtSeconds Time since the previous call, used only when rate limiting.
+   */
+  void update(
+      double xSpeed, double ySpeed, double rot, Rotation2d heading, boolean rateLimit,
+      double dtSeconds) {
+    if (heading != null) {
+      // Rotate the field-relative speeds into the robot frame
+      double robotX = xSpeed * heading.getCos() + ySpeed * heading.getSin();
+      double robotY = -xSpeed * heading.getSin() + ySpeed * heading.getCos();
+      xSpeed = robotX;
+      ySpeed = robotY;
+    }
+
+    if (rateLimit) {
+      m_setpointGenerator.generate(xSpeed, ySpeed, rot, dtSeconds, m_moduleSpeeds, m_moduleAngles);
+    } else {
+      DriveConstants.kModuleKinematics.toModuleStates(
+          xSpeed, ySpeed, rot, m_moduleSpeeds, m_moduleAngles);
+      FourModuleSwerveKinematics.desaturateWheelSpeeds(
+          m_moduleSpeeds, DriveConstants.kMaxSpeedMetersPerSecond);
+
+      // Keep the setpoint generator in sync so enabling rate limiting starts from this state
+      DriveConstants.kModuleKinematics.toChassisSpeeds(m_moduleSpeeds, m_moduleAngles, m_chassisSpeeds);
+      m_setpointGenerator.reset(m_chassisSpeeds[0], m_chassisSpeeds[1], m_chassisSpeeds[2], m_moduleAngles);
+    }
+  }
+}
@@ -4,21 +4,27 @@
 
 package frc.robot.subsystems;
 
-import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.kinematics.ChassisSpeeds;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.util.WPIUtilJNI;
 import com.ctre.phoenix.sensors.WPI_PigeonIMU;
 import frc.robot.Constants.DriveConstants;
-import frc.utils.SwerveUtils;
+import frc.robot.Constants.LimelightConstants;
+import frc.utils.FourModuleSwerveKinematics;
+import frc.utils.InterpolatingTimeSeries;
+import frc.utils.LoopProfiler;
+import frc.utils.PoseHistory;
+import frc.utils.SignalLogger;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
+import java.util.Arrays;
+
 public class DriveSubsystem extends SubsystemBase {
   // Create MAXSwerveModules
   private final MAXSwerveModule m_frontLeft = new MAXSwerveModule(
@@ -44,51 +50,280 @@ public class DriveSubsystem extends SubsystemBase {
   // The gyro sensor
   private final WPI_PigeonIMU m_gyro = new WPI_PigeonIMU(20);
 
-  // Slew rate filter variables for controlling lateral acceleration
-  private double m_currentRotation = 0.0;
-  private double m_currentTranslationDir = 0.0;
-  private double m_currentTranslationMag = 0.0;
   private double m_speedPercent = 0.4;
 
-  private SlewRateLimiter m_magLimiter = new SlewRateLimiter(DriveConstants.kMagnitudeSlewRate);
-  private SlewRateLimiter m_rotLimiter = new SlewRateLimiter(DriveConstants.kRotationalSlewRate);
+  // Module setpoints computed by drive(), with the setpoint generator that rate limits them
+  private final DriveSetpoints m_setpoints = new DriveSetpoints();
+  private final double[] m_moduleSpeeds = m_setpoints.m_moduleSpeeds;
+  private final double[] m_moduleAngles = m_setpoints.m_moduleAngles;
   private double m_prevTime = WPIUtilJNI.now() * 1e-6;
 
-  // Odometry class for tracking robot pose
-  SwerveDriveOdometry m_odometry = new SwerveDriveOdometry(
+  // Module positions reused for every odometry update, ordered front left, front right, rear
+  // left, rear right to match DriveConstants.kDriveKinematics
+  private final SwerveModulePosition[] m_modulePositions = new SwerveModulePosition[] {
+      new SwerveModulePosition(),
+      new SwerveModulePosition(),
+      new SwerveModulePosition(),
+      new SwerveModulePosition()
+  };
+
+  // Last module angles and gyro reading, with the rotations built from them. Rotation2d is
+  // immutable, so each rotation is reused until its reading changes.
+  private final double[] m_lastModuleAngles = new double[] {Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+  private double m_lastGyroAngle = Double.NaN;
+  private Rotation2d m_gyroRotation = new Rotation2d();
+
+  // Gyro readings taken once per loop by readSensors()
+  private double m_gyroAngle = 0.0;
+  private double m_gyroRate = 0.0;
+
+  // Samples the encoders and gyro faster than the main loop; drained in periodic()
+  private final OdometryThread m_odometryThread = new OdometryThread(
+      new MAXSwerveModule[] {m_frontLeft, m_frontRight, m_rearLeft, m_rearRight},
+      m_gyro,
+      DriveConstants.kOdometryBufferCapacity);
+  private final double[] m_odometrySample = new double[OdometryThread.kSampleSize];
+
+  private final LoopProfiler.Section m_profile =
+      LoopProfiler.addSection("DriveSubsystem.periodic");
+
+  // Binary log channels. Odometry samples are logged at the time the odometry thread took them.
+  private final SignalLogger.Channel m_odometryLog =
+      SignalLogger.addChannel("Drive/Odometry", OdometryThread.kSampleSize - 1);
+  private final SignalLogger.Channel m_poseLog = SignalLogger.addChannel("Drive/Pose", 3);
+  private final SignalLogger.Channel m_gyroLog = SignalLogger.addChannel("Drive/Gyro", 2);
+  private final SignalLogger.Channel m_measuredStatesLog =
+      SignalLogger.addChannel("Drive/Measured States", 2 * FourModuleSwerveKinematics.kNumModules);
+  private final SignalLogger.Channel m_desiredStatesLog =
+      SignalLogger.addChannel("Drive/Desired States", 2 * FourModuleSwerveKinematics.kNumModules);
+
+  // Pose estimator fusing wheel odometry with vision measurements
+  private final SwerveDrivePoseEstimator m_poseEstimator = new SwerveDrivePoseEstimator(
       DriveConstants.kDriveKinematics,
-      Rotation2d.fromDegrees(m_gyro.getAngle()),
-      new SwerveModulePosition[] {
-          m_frontLeft.getPosition(),
-          m_frontRight.getPosition(),
-          m_rearLeft.getPosition(),
-          m_rearRight.getPosition()
-      });
+      getGyroRotation(m_gyro.getAngle()),
+      updateModulePositions(),
+      new Pose2d(),
+      DriveConstants.kStateStdDevs,
+      LimelightConstants.kVisionStdDevs);
+
+  // Latest estimated pose, published for readers on any thread
+  private volatile Pose2d m_pose = m_poseEstimator.getEstimatedPosition();
+
+  // Wheel and gyro dead reckoning, never corrected by vision. The motion between two of its poses
+  // is pure odometry, so it carries the current estimate back to the time an image was captured.
+  private Pose2d m_odometryPose = m_pose;
+  // Estimator output after the last odometry update or vision correction
+  private Pose2d m_lastEstimate = m_pose;
+
+  // Every odometry pose, kept for latency-compensated lookups
+  private final PoseHistory m_poseHistory = new PoseHistory(
+      (int) Math.ceil(DriveConstants.kPoseHistorySeconds * DriveConstants.kOdometryFrequencyHz));
+
+  // Raw gyro angle at every odometry sample, for latency-compensated heading lookups. Unlike the
+  // pose, it is never moved by vision corrections or odometry resets.
+  private final InterpolatingTimeSeries m_gyroHistory = new InterpolatingTimeSeries(
+      (int) Math.ceil(DriveConstants.kPoseHistorySeconds * DriveConstants.kOdometryFrequencyHz));
+
+  // Vision gating. Until enough consecutive measurements agree with the estimate, every
+  // measurement is accepted so the estimate can converge from a wrong starting pose. Afterwards,
+  // enough consecutive rejected measurements that agree with each other reopen the gate.
+  private boolean m_visionConverged = false;
+  private int m_visionAgreeingFrames = 0;
+  private int m_visionRejectedFrames = 0;
+  private double m_rejectedErrorX = 0.0;
+  private double m_rejectedErrorY = 0.0;
+  private double m_rejectedErrorTheta = 0.0;
 
   /** Creates a new DriveSubsystem. */
   public DriveSubsystem() {
+    readSensors();
+    m_odometryThread.start(DriveConstants.kOdometryFrequencyHz);
+  }
+
+  /**
+   * Reads the gyro and module sensors once for this loop. Must be called at the start of each loop,
+   * before any commands run; every other method uses these readings until the next call.
+   */
+  public void readSensors() {
+    m_gyroAngle = m_gyro.getAngle();
+    m_gyroRate = m_gyro.getRate();
+    m_frontLeft.readSensors();
+    m_frontRight.readSensors();
+    m_rearLeft.readSensors();
+    m_rearRight.readSensors();
   }
 
   @Override
   public void periodic() {
-    // Update the odometry in the periodic block
-    m_odometry.update(
-        Rotation2d.fromDegrees(m_gyro.getAngle()),
-        new SwerveModulePosition[] {
-            m_frontLeft.getPosition(),
-            m_frontRight.getPosition(),
-            m_rearLeft.getPosition(),
-            m_rearRight.getPosition()
-        });
+    m_profile.start();
+    // Integrate every sample taken by the odometry thread since the last loop. Filling the module
+    // positions does not allocate; updateWithTime() and the Pose2d math still allocate a few
+    // small, short-lived objects per sample inside WPILib.
+    while (m_odometryThread.poll(m_odometrySample)) {
+      Pose2d pose = m_poseEstimator.updateWithTime(
+          m_odometrySample[OdometryThread.kTimestampIndex],
+          getGyroRotation(m_odometrySample[OdometryThread.kGyroAngleIndex]),
+          updateModulePositions(m_odometrySample));
+      m_odometryPose = m_odometryPose.transformBy(pose.minus(m_lastEstimate));
+      m_lastEstimate = pose;
+      m_poseHistory.record(m_odometrySample[OdometryThread.kTimestampIndex], m_odometryPose);
+      m_gyroHistory.add(
+          m_odometrySample[OdometryThread.kTimestampIndex],
+          m_odometrySample[OdometryThread.kGyroAngleIndex]);
+      m_odometryLog.setAll(m_odometrySample, OdometryThread.kTimestampIndex + 1);
+      m_odometryLog.append(m_odometrySample[OdometryThread.kTimestampIndex]);
+    }
+    m_pose = m_poseEstimator.getEstimatedPosition();
+
+    m_poseLog.set(0, m_pose.getX());
+    m_poseLog.set(1, m_pose.getY());
+    m_poseLog.set(2, m_pose.getRotation().getRadians());
+    m_poseLog.append();
+    m_gyroLog.set(0, m_gyroAngle);
+    m_gyroLog.set(1, m_gyroRate);
+    m_gyroLog.append();
+    logMeasuredState(0, m_frontLeft);
+    logMeasuredState(1, m_frontRight);
+    logMeasuredState(2, m_rearLeft);
+    logMeasuredState(3, m_rearRight);
+    m_measuredStatesLog.append();
+    m_profile.stop();
   }
 
   /**
-   * Returns the currently-estimated pose of the robot.
+   * Refreshes the reused module position buffer from the swerve modules.
+   *
+   * @return The module positions, ordered front left, front right, rear left, rear right.
+   */
+  SwerveModulePosition[] updateModulePositions() {
+    m_frontLeft.updatePosition(m_modulePositions[0]);
+    m_frontRight.updatePosition(m_modulePositions[1]);
+    m_rearLeft.updatePosition(m_modulePositions[2]);
+    m_rearRight.updatePosition(m_modulePositions[3]);
+    // The angles no longer come from a sample, so the next sample must rebuild them
+    Arrays.fill(m_lastModuleAngles, Double.NaN);
+    return m_modulePositions;
+  }
+
+  /**
+   * Refreshes the reused module position buffer from an odometry thread sample.
+   *
+   * @param sample The sample, laid out as described in {@link OdometryThread}.
+   * @return The module positions, ordered front left, front right, rear left, rear right.
+   */
+  SwerveModulePosition[] updateModulePositions(double[] sample) {
+    for (int i = 0; i < m_modulePositions.length; i++) {
+      double angle = sample[OdometryThread.kAngleIndex + i];
+      m_modulePositions[i].distanceMeters = sample[OdometryThread.kDistanceIndex + i];
+      if (angle != m_lastModuleAngles[i]) {
+        m_lastModuleAngles[i] = angle;
+        m_modulePositions[i].angle = new Rotation2d(angle);
+      }
+    }
+    return m_modulePositions;
+  }
+
+  /**
+   * Returns a gyro reading as a rotation, only allocating when the reading has changed.
+   *
+   * @param angleDegrees The gyro angle in degrees.
+   * @return The gyro angle.
+   */
+  private Rotation2d getGyroRotation(double angleDegrees) {
+    if (angleDegrees != m_lastGyroAngle) {
+      m_lastGyroAngle = angleDegrees;
+      m_gyroRotation = Rotation2d.fromDegrees(angleDegrees);
+    }
+    return m_gyroRotation;
+  }
+
+  /**
+   * Returns the currently-estimated pose of the robot. Safe to call from any thread.
    *
    * @return The pose.
    */
   public Pose2d getPose() {
-    return m_odometry.getPoseMeters();
+    return m_pose;
+  }
+
+  /**
+   * Returns the estimated pose of the robot at a past time: the current estimate, moved back by the
+   * odometry recorded since then. Vision corrections made since that time are therefore included.
+   * Times older than the history use the oldest recorded odometry, and times newer than the latest
+   * update return the latest pose.
+   *
+   * @param timestampSeconds The FPGA timestamp to look up.
+   * @return The pose at that time.
+   */
+  public Pose2d getPoseAt(double timestampSeconds) {
+    Pose2d odometryPose = m_poseHistory.getPoseAt(timestampSeconds);
+    return odometryPose != null
+        ? m_pose.transformBy(odometryPose.minus(m_odometryPose))
+        : m_pose;
+  }
+
+  /**
+   * Fuses a field-relative vision pose into the pose estimate at the time the image was captured.
+   *
+   * <p>Once the estimate has converged, measurements that disagree with the estimated pose at that
+   * time by more than LimelightConstants.kVisionOutlierSigma standard deviations are rejected as
+   * outliers. Before then every measurement is accepted; the estimate counts as converged after
+   * LimelightConstants.kVisionConvergenceFrames consecutive measurements agree with it. If
+   * LimelightConstants.kVisionRecoveryFrames consecutive measurements are rejected but agree with
+   * each other, the estimate is the one that is wrong, and the gate opens until it converges again.
+   *
+   * @param visionPose The robot pose measured by vision.
+   * @param timestampSeconds The FPGA timestamp at which the image was captured.
+   * @return Whether the measurement was accepted.
+   */
+  public boolean addVisionMeasurement(Pose2d visionPose, double timestampSeconds) {
+    Pose2d posePrior = getPoseAt(timestampSeconds);
+    double errorX = visionPose.getX() - posePrior.getX();
+    double errorY = visionPose.getY() - posePrior.getY();
+    double errorTheta = visionPose.getRotation().minus(posePrior.getRotation()).getRadians();
+    boolean agrees = isInsideVisionGate(errorX, errorY, errorTheta);
+
+    if (!agrees && m_visionConverged) {
+      boolean consistent = m_visionRejectedFrames > 0
+          && isInsideVisionGate(
+              errorX - m_rejectedErrorX,
+              errorY - m_rejectedErrorY,
+              MathUtil.angleModulus(errorTheta - m_rejectedErrorTheta));
+      m_visionRejectedFrames = consistent ? m_visionRejectedFrames + 1 : 1;
+      m_rejectedErrorX = errorX;
+      m_rejectedErrorY = errorY;
+      m_rejectedErrorTheta = errorTheta;
+      if (m_visionRejectedFrames < LimelightConstants.kVisionRecoveryFrames) {
+        return false;
+      }
+      m_visionConverged = false;
+    }
+    m_visionRejectedFrames = 0;
+    m_visionAgreeingFrames = agrees ? m_visionAgreeingFrames + 1 : 0;
+    if (m_visionAgreeingFrames >= LimelightConstants.kVisionConvergenceFrames) {
+      m_visionConverged = true;
+    }
+
+    m_poseEstimator.addVisionMeasurement(visionPose, timestampSeconds);
+    m_pose = m_poseEstimator.getEstimatedPosition();
+    m_lastEstimate = m_pose;
+    return true;
+  }
+
+  /**
+   * Returns whether the difference between a vision pose and the estimate is within the outlier
+   * gate.
+   *
+   * @param errorX The x difference in meters.
+   * @param errorY The y difference in meters.
+   * @param errorTheta The heading difference in radians, from -pi to pi.
+   * @return Whether the vision pose agrees with the estimate.
+   */
+  private static boolean isInsideVisionGate(double errorX, double errorY, double errorTheta) {
+    return Math.hypot(errorX, errorY)
+            <= LimelightConstants.kVisionOutlierSigma * LimelightConstants.kVisionStdDevs.get(0, 0)
+        && Math.abs(errorTheta)
+            <= LimelightConstants.kVisionOutlierSigma * LimelightConstants.kVisionStdDevs.get(2, 0);
   }
 
   /**
@@ -97,15 +332,17 @@ public class DriveSubsystem extends SubsystemBase {
    * @param pose The pose to which to set the odometry.
    */
   public void resetOdometry(Pose2d pose) {
-    m_odometry.resetPosition(
-        Rotation2d.fromDegrees(m_gyro.getAngle()),
-        new SwerveModulePosition[] {
-            m_frontLeft.getPosition(),
-            m_frontRight.getPosition(),
-            m_rearLeft.getPosition(),
-            m_rearRight.getPosition()
-        },
-        pose);
+    // Drop samples taken against the old pose before resetting
+    m_odometryThread.clear();
+    m_poseEstimator.resetPosition(getGyroRotation(m_gyro.getAngle()), updateModulePositions(), pose);
+    m_pose = m_poseEstimator.getEstimatedPosition();
+    m_odometryPose = m_pose;
+    m_lastEstimate = m_pose;
+    m_poseHistory.clear();
+    // The new pose may be wrong too; let vision pull it in before gating again
+    m_visionConverged = false;
+    m_visionAgreeingFrames = 0;
+    m_visionRejectedFrames = 0;
   }
 
   /**
@@ -122,72 +359,36 @@ public class DriveSubsystem extends SubsystemBase {
     xSpeed *= m_speedPercent;
     ySpeed *= m_speedPercent;
 
-    double xSpeedCommanded;
-    double ySpeedCommanded;
+    // Convert the commanded speeds into the correct units for the drivetrain
+    double xSpeedDelivered = xSpeed * DriveConstants.kMaxSpeedMetersPerSecond;
+    double ySpeedDelivered = ySpeed * DriveConstants.kMaxSpeedMetersPerSecond;
+    double rotDelivered = rot * DriveConstants.kMaxAngularSpeed;
 
-    if (rateLimit) {
-      // Convert XY to polar for rate limiting
-      double inputTranslationDir = Math.atan2(ySpeed, xSpeed);
-      double inputTranslationMag = Math.sqrt(Math.pow(xSpeed, 2) + Math.pow(ySpeed, 2));
+    double currentTime = WPIUtilJNI.now() * 1e-6;
+    double elapsedTime = currentTime - m_prevTime;
+    m_prevTime = currentTime;
 
-      // Calculate the direction slew rate based on an estimate of the lateral acceleration
-      double directionSlewRate;
-      if (m_currentTranslationMag != 0.0) {
-        directionSlewRate = Math.abs(DriveConstants.kDirectionSlewRate / m_currentTranslationMag);
-      } else {
-        directionSlewRate = 500.0; //some high number that means the slew rate is effectively instantaneous
-      }
-      
-
-      double currentTime = WPIUtilJNI.now() * 1e-6;
-      double elapsedTime = currentTime - m_prevTime;
-      double angleDif = SwerveUtils.AngleDifference(inputTranslationDir, m_currentTranslationDir);
-      if (angleDif < 0.45*Math.PI) {
-        m_currentTranslationDir = SwerveUtils.StepTowardsCircular(m_currentTranslationDir, inputTranslationDir, directionSlewRate * elapsedTime);
-        m_currentTranslationMag = m_magLimiter.calculate(inputTranslationMag);
-      }
-      else if (angleDif > 0.85*Math.PI) {
-        if (m_currentTranslationMag > 1e-4) { //some small number to avoid floating-point errors with equality checking
-          // keep currentTranslationDir unchanged
-          m_currentTranslationMag = m_magLimiter.calculate(0.0);
-        }
-        else {
-          m_currentTranslationDir = SwerveUtils.WrapAngle(m_currentTranslationDir + Math.PI);
-          m_currentTranslationMag = m_magLimiter.calculate(inputTranslationMag);
-        }
-      }
-      else {
-        m_currentTranslationDir = SwerveUtils.StepTowardsCircular(m_currentTranslationDir, inputTranslationDir, directionSlewRate * elapsedTime);
-        m_currentTranslationMag = m_magLimiter.calculate(0.0);
-      }
-      m_prevTime = currentTime;
-      
-      xSpeedCommanded = m_currentTranslationMag * Math.cos(m_currentTranslationDir);
-      ySpeedCommanded = m_currentTranslationMag * Math.sin(m_currentTranslationDir);
-      m_currentRotation = m_rotLimiter.calculate(rot);
+    // A long gap since the last call (e.g. while disabled) must not allow one unbounded step
+    m_setpoints.update(
+        xSpeedDelivered, ySpeedDelivered, rotDelivered,
+        fieldRelative ? getGyroRotation(m_gyroAngle) : null,
+        rateLimit, Math.min(elapsedTime, 0.1));
 
+    m_frontLeft.setDesiredState(m_moduleSpeeds[0], m_moduleAngles[0]);
+    m_frontRight.setDesiredState(m_moduleSpeeds[1], m_moduleAngles[1]);
+    m_rearLeft.setDesiredState(m_moduleSpeeds[2], m_moduleAngles[2]);
+    m_rearRight.setDesiredState(m_moduleSpeeds[3], m_moduleAngles[3]);
 
-    } else {
-      xSpeedCommanded = xSpeed;
-      ySpeedCommanded = ySpeed;
-      m_currentRotation = rot;
+    for (int i = 0; i < FourModuleSwerveKinematics.kNumModules; i++) {
+      m_desiredStatesLog.set(2 * i, m_moduleSpeeds[i]);
+      m_desiredStatesLog.set(2 * i + 1, m_moduleAngles[i]);
     }
+    m_desiredStatesLog.append();
+  }
 
-    // Convert the commanded speeds into the correct units for the drivetrain
-    double xSpeedDelivered = xSpeedCommanded * DriveConstants.kMaxSpeedMetersPerSecond;
-    double ySpeedDelivered = ySpeedCommanded * DriveConstants.kMaxSpeedMetersPerSecond;
-    double rotDelivered = m_currentRotation * DriveConstants.kMaxAngularSpeed;
-
-    var swerveModuleStates = DriveConstants.kDriveKinematics.toSwerveModuleStates(
-        fieldRelative
-            ? ChassisSpeeds.fromFieldRelativeSpeeds(xSpeedDelivered, ySpeedDelivered, rotDelivered, Rotation2d.fromDegrees(m_gyro.getAngle()))
-            : new ChassisSpeeds(xSpeedDelivered, ySpeedDelivered, rotDelivered));
-    SwerveDriveKinematics.desaturateWheelSpeeds(
-        swerveModuleStates, DriveConstants.kMaxSpeedMetersPerSecond);
-    m_frontLeft.setDesiredState(swerveModuleStates[0]);
-    m_frontRight.setDesiredState(swerveModuleStates[1]);
-    m_rearLeft.setDesiredState(swerveModuleStates[2]);
-    m_rearRight.setDesiredState(swerveModuleStates[3]);
+  private void logMeasuredState(int index, MAXSwerveModule module) {
+    m_measuredStatesLog.set(2 * index, module.getMeasuredSpeedMetersPerSecond());
+    m_measuredStatesLog.set(2 * index + 1, module.getMeasuredAngleRadians());
   }
 
   /**
@@ -244,6 +445,31 @@ public class DriveSubsystem extends SubsystemBase {
   /** Zeroes the heading of the robot. */
   public void zeroHeading() {
     m_gyro.reset();
+    // Angles from before the reset are no longer comparable with new ones
+    m_gyroHistory.clear();
+  }
+
+  /**
+   * Returns the raw gyro angle as of the last {@link #readSensors()}. Unlike the pose heading, it
+   * is not wrapped and is never corrected by vision.
+   *
+   * @return The gyro angle in degrees.
+   */
+  public double getGyroAngleDegrees() {
+    return m_gyroAngle;
+  }
+
+  /**
+   * Returns the raw gyro angle at a past time, interpolated from the odometry samples. Times older
+   * than the history return the oldest sample, and times newer than the latest sample return the
+   * latest one.
+   *
+   * @param timestampSeconds The FPGA timestamp to look up.
+   * @return The gyro angle in degrees, comparable with {@link #getGyroAngleDegrees()}.
+   */
+  public double getGyroAngleDegreesAt(double timestampSeconds) {
+    double angle = m_gyroHistory.getInterpolated(timestampSeconds);
+    return Double.isNaN(angle) ? m_gyroAngle : angle;
   }
 
   /**
@@ -252,7 +478,7 @@ public class DriveSubsystem extends SubsystemBase {
    * @return the robot's heading in degrees, from -180 to 180
    */
   public double getHeading() {
-    return Rotation2d.fromDegrees(m_gyro.getAngle()).getDegrees();
+    return getGyroRotation(m_gyroAngle).getDegrees();
   }
 
   /**
@@ -261,6 +487,6 @@ public class DriveSubsystem extends SubsystemBase {
    * @return The turn rate of the robot, in degrees per second
    */
   public double getTurnRate() {
-    return m_gyro.getRate() * (DriveConstants.kGyroReversed ? -1.0 : 1.0);
+    return m_gyroRate * (DriveConstants.kGyroReversed ? -1.0 : 1.0);
   }
 }
@@ -4,28 +4,154 @@
 
 package frc.robot.subsystems;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableEvent;
 import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.RobotBase;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.LimelightConstants;
-//import frc.utils.InterpolatingDouble;
+import frc.utils.DoubleRingBuffer;
+import frc.utils.InterpolatingDoubleGrid;
+import frc.utils.LoopProfiler;
+import frc.utils.SignalLogger;
+import frc.utils.Telemetry;
+import java.io.IOException;
+import java.util.EnumSet;
 
 public class LimelightManager extends SubsystemBase {
   NetworkTable table = NetworkTableInstance.getDefault().getTable("limelight");
-  NetworkTableEntry tx = table.getEntry("tx");
-  NetworkTableEntry ty = table.getEntry("ty");
+  NetworkTableEntry json = table.getEntry("json");
   NetworkTableEntry lightState = table.getEntry("ledMode");
   NetworkTableEntry cameraState = table.getEntry("camMode");
 
   double m_targetVerticalAngle;
   double m_targetHorizontalError;
+  private boolean m_hasTarget = false;
+  private double m_targetTimestamp = Double.NaN;
+  private double m_lastFrameTimestamp = Double.NaN;
 
-  /** Creates a new LimelightManager. */
-  public LimelightManager() {}
+  private final VisionMeasurementConsumer m_visionConsumer;
+
+  // Shooter RPM by distance and horizontal angle, or null if it is not calibrated or failed to load
+  private final InterpolatingDoubleGrid m_shooterRPMGrid;
+
+  // Vision samples, written by the NetworkTables listener thread and drained by readSensors()
+  private static final int kTimestampIndex = 0;
+  private static final int kValidIndex = 1;
+  private static final int kHorizontalErrorIndex = 2;
+  private static final int kVerticalAngleIndex = 3;
+  private static final int kPoseValidIndex = 4;
+  private static final int kPoseXIndex = 5;
+  private static final int kPoseYIndex = 6;
+  private static final int kPoseYawIndex = 7;
+  private static final int kSampleSize = 8;
+  private final DoubleRingBuffer m_samples =
+      new DoubleRingBuffer(LimelightConstants.kSampleBufferCapacity, kSampleSize);
+  private final double[] m_listenerSample = new double[kSampleSize];
+  private final double[] m_sample = new double[kSampleSize];
+  private final ObjectMapper m_jsonMapper = new ObjectMapper();
+  private long m_malformedFrames = 0;
+
+  private final LoopProfiler.Section m_profile =
+      LoopProfiler.addSection("LimelightManager.periodic");
+
+  // Every frame is logged at its capture time: [tv, tx, ty, pose valid, x, y, yaw]
+  private final SignalLogger.Channel m_frameLog =
+      SignalLogger.addChannel("Limelight/Frames", kSampleSize - 1);
+
+  private final Telemetry.DoubleSignal m_distanceSignal = Telemetry.addDouble("LL DIst");
+
+  /** Receives field-relative robot poses measured by the Limelight. */
+  @FunctionalInterface
+  public interface VisionMeasurementConsumer {
+    /**
+     * Accepts a vision measurement.
+     *
+     * @param visionPose The measured robot pose, relative to the blue alliance origin.
+     * @param timestampSeconds The FPGA timestamp at which the image was captured.
+     * @return Whether the measurement was used.
+     */
+    boolean accept(Pose2d visionPose, double timestampSeconds);
+  }
+
+  /**
+   * Creates a new LimelightManager.
+   *
+   * @param visionConsumer Receives each field-relative pose measurement from the Limelight.
+   */
+  public LimelightManager(VisionMeasurementConsumer visionConsumer) {
+    m_visionConsumer = visionConsumer;
+
+    InterpolatingDoubleGrid shooterRPMGrid = null;
+    if (LimelightConstants.kShooterRPMGridCalibrated) {
+      try {
+        shooterRPMGrid = InterpolatingDoubleGrid.fromDeployCsv(LimelightConstants.kShooterRPMGridFile);
+      } catch (IOException e) {
+        DriverStation.reportError("Failed to load shooter RPM grid: " + e.getMessage(), false);
+      }
+    }
+    m_shooterRPMGrid = shooterRPMGrid;
+
+    // The Limelight publishes the full results of each processed frame as one JSON string. Reading
+    // everything from that one value keeps a sample from mixing the separate tx, ty, tv and botpose
+    // entries of two different frames.
+    NetworkTableInstance.getDefault().addListener(
+        json, EnumSet.of(NetworkTableEvent.Kind.kValueAll), this::onFrame);
+  }
+
+  /**
+   * Records one processed frame. Runs on the NetworkTables listener thread.
+   *
+   * @param event The json update for the frame.
+   */
+  private void onFrame(NetworkTableEvent event) {
+    NetworkTableValue value = event.valueData.value;
+    JsonNode results;
+    try {
+      results = m_jsonMapper.readTree(value.getString()).path("Results");
+    } catch (JsonProcessingException e) {
+      // Skip the frame; report the first one, since the rest will likely fail the same way
+      if (m_malformedFrames++ == 0) {
+        DriverStation.reportWarning("Malformed Limelight results: " + e.getMessage(), false);
+      }
+      return;
+    }
+
+    // The server time is when the Limelight published the frame, on the robot's clock. The image
+    // was captured the pipeline latency plus the capture latency, both in milliseconds, before it.
+    double latencySeconds =
+        (results.path("tl").asDouble(0.0) + results.path("cl").asDouble(0.0)) / 1000.0;
+    m_listenerSample[kTimestampIndex] = value.getServerTime() / 1e6 - latencySeconds;
+
+    // The primary target is the first one listed, retroreflective or AprilTag by pipeline
+    JsonNode target = results.path("Retro").path(0);
+    if (target.isMissingNode()) {
+      target = results.path("Fiducial").path(0);
+    }
+    boolean valid = results.path("v").asInt(0) == 1 && !target.isMissingNode();
+    m_listenerSample[kValidIndex] = valid ? 1 : 0;
+    m_listenerSample[kHorizontalErrorIndex] = target.path("tx").asDouble(0.0);
+    m_listenerSample[kVerticalAngleIndex] = target.path("ty").asDouble(0.0);
+
+    // botpose is [x, y, z, roll, pitch, yaw] in meters and degrees
+    JsonNode pose = results.path("botpose_wpiblue");
+    boolean poseValid = valid && pose.size() >= 6;
+    m_listenerSample[kPoseValidIndex] = poseValid ? 1 : 0;
+    m_listenerSample[kPoseXIndex] = poseValid ? pose.path(0).asDouble() : 0;
+    m_listenerSample[kPoseYIndex] = poseValid ? pose.path(1).asDouble() : 0;
+    m_listenerSample[kPoseYawIndex] = poseValid ? pose.path(5).asDouble() : 0;
+    m_samples.offer(m_listenerSample);
+  }
 
   public void turnOnLED() {
     lightState.setNumber(3);
@@ -55,16 +181,45 @@ public class LimelightManager extends SubsystemBase {
     return m_targetHorizontalError;
   }
 
+  /**
+   * Returns whether the latest frame had a target. Becomes false when no frame has arrived for
+   * LimelightConstants.kFrameTimeoutSeconds, e.g. because the Limelight disconnected.
+   *
+   * @return true if the Limelight currently sees a target.
+   */
+  public boolean hasTarget() {
+    return m_hasTarget;
+  }
+
+  /**
+   * Returns when the image behind the latest valid target measurement was captured.
+   *
+   * @return The FPGA timestamp of the capture in seconds, or NaN before the first target.
+   */
+  public double getTargetTimestampSeconds() {
+    return m_targetTimestamp;
+  }
+
   /*public double getShooterTargetRPM() {
-    return LimelightConstants.kShooterRPMMap.getInterpolated(new InterpolatingDouble(getDistance()))
-        .value;
+    return LimelightConstants.kShooterRPMMap.getInterpolated(getDistance());
   }
 
   public double getHoodTargetPos() {
-    return LimelightConstants.kHoodMap.getInterpolated(new InterpolatingDouble(getDistance()))
-        .value;
+    return LimelightConstants.kHoodMap.getInterpolated(getDistance());
   }*/
 
+  /**
+   * Looks up the shooter RPM for the current target by distance and horizontal angle.
+   *
+   * @return The target RPM, or NaN if the RPM grid is not calibrated or could not be loaded.
+   */
+  public double getShooterTargetRPMByAngle() {
+    if (m_shooterRPMGrid == null) {
+      return Double.NaN;
+    }
+    return m_shooterRPMGrid.getInterpolated(getDistance(), getHorizontalErrorDegrees());
+  }
+
   public void setVerticalAngleDegrees(double degrees) {
     // No-op if this isn't sim (testing purposes only)
     if (RobotBase.isSimulation()) {
@@ -72,11 +227,46 @@ public class LimelightManager extends SubsystemBase {
     }
   }
 
+  /**
+   * Takes the frames the Limelight has sent since the last loop. Must be called at the start of
+   * each loop, before any commands run; every other method uses the latest valid target until the
+   * next call. Every botpose measurement is passed to the vision consumer, each exactly once.
+   */
+  public void readSensors() {
+    while (m_samples.poll(m_sample)) {
+      m_frameLog.setAll(m_sample, kTimestampIndex + 1);
+      m_frameLog.append(m_sample[kTimestampIndex]);
+      m_lastFrameTimestamp = m_sample[kTimestampIndex];
+      m_hasTarget = m_sample[kValidIndex] == 1.0;
+      if (!m_hasTarget) {
+        continue;
+      }
+      m_targetHorizontalError = m_sample[kHorizontalErrorIndex];
+      m_targetVerticalAngle = m_sample[kVerticalAngleIndex];
+      m_targetTimestamp = m_sample[kTimestampIndex];
+
+      if (m_sample[kPoseValidIndex] == 1.0) {
+        m_visionConsumer.accept(
+            new Pose2d(
+                m_sample[kPoseXIndex],
+                m_sample[kPoseYIndex],
+                Rotation2d.fromDegrees(m_sample[kPoseYawIndex])),
+            m_targetTimestamp);
+      }
+    }
+
+    // A target the Limelight stopped reporting on is no longer seen
+    if (m_hasTarget
+        && Timer.getFPGATimestamp() - m_lastFrameTimestamp > LimelightConstants.kFrameTimeoutSeconds) {
+      m_hasTarget = false;
+    }
+  }
+
   @Override
   public void periodic() {
+    m_profile.start();
     // This method will be called once per scheduler run
-    m_targetVerticalAngle = ty.getDouble(0.0);
-    m_targetHorizontalError = tx.getDouble(0.0);
-    SmartDashboard.putNumber("LL DIst", getDistance());
+    m_distanceSignal.set(getDistance());
+    m_profile.stop();
   }
 }
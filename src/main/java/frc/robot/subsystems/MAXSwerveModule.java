@@ -4,6 +4,7 @@
 
 package frc.robot.subsystems;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
@@ -15,9 +16,20 @@ import com.revrobotics.SparkMaxPIDController;
 import com.revrobotics.AbsoluteEncoder;
 import com.revrobotics.RelativeEncoder;
 
+import frc.robot.Constants.CANConstants;
 import frc.robot.Constants.ModuleConstants;
+import frc.utils.DeviceConfigurator;
+import frc.utils.OutputCoalescer;
+import frc.utils.StatusFrameUtil;
 
 public class MAXSwerveModule {
+  // Hashes of the settings configureDriving() and configureTurning() save to flash that the
+  // SPARK MAX cannot report back; the rest are compared with the device's readback
+  private static final int kDrivingConfigHash = DeviceConfigurator.hash(
+      "primary encoder feedback", ModuleConstants.kDrivingMotorCurrentLimit);
+  private static final int kTurningConfigHash = DeviceConfigurator.hash(
+      "absolute encoder feedback", ModuleConstants.kTurningMotorCurrentLimit);
+
   private final CANSparkMax m_drivingSparkMax;
   private final CANSparkMax m_turningSparkMax;
 
@@ -27,8 +39,20 @@ public class MAXSwerveModule {
   private final SparkMaxPIDController m_drivingPIDController;
   private final SparkMaxPIDController m_turningPIDController;
 
+  // Skip resending setpoints that have not changed
+  private final OutputCoalescer m_drivingWrites;
+  private final OutputCoalescer m_turningWrites;
+
   private double m_chassisAngularOffset = 0;
-  private SwerveModuleState m_desiredState = new SwerveModuleState(0.0, new Rotation2d());
+
+  // Last turning encoder reading and the chassis-relative angle built from it. Rotation2d is
+  // immutable, so the same instance can be handed out until the encoder reading changes.
+  private double m_lastTurningPosition = Double.NaN;
+  private Rotation2d m_chassisRelativeAngle = new Rotation2d();
+
+  // Sensor readings taken once per loop by readSensors()
+  private double m_turningPosition = 0;
+  private double m_drivingVelocity = 0;
 
   /**
    * Constructs a MAXSwerveModule and configures the driving and turning motor,
@@ -39,87 +63,237 @@ public class MAXSwerveModule {
   public MAXSwerveModule(int drivingCANId, int turningCANId, double chassisAngularOffset) {
     m_drivingSparkMax = new CANSparkMax(drivingCANId, MotorType.kBrushless);
     m_turningSparkMax = new CANSparkMax(turningCANId, MotorType.kBrushless);
-
-    // Factory reset, so we get the SPARKS MAX to a known state before configuring
-    // them. This is useful in case a SPARK MAX is swapped out.
-    m_drivingSparkMax.restoreFactoryDefaults();
-    m_turningSparkMax.restoreFactoryDefaults();
+    m_drivingWrites = new OutputCoalescer("SPARK MAX " + drivingCANId,
+        ModuleConstants.kDrivingSetpointEpsilon, CANConstants.kOutputKeepAliveSeconds);
+    m_turningWrites = new OutputCoalescer("SPARK MAX " + turningCANId,
+        ModuleConstants.kTurningSetpointEpsilon, CANConstants.kOutputKeepAliveSeconds);
 
     // Setup encoders and PID controllers for the driving and turning SPARKS MAX.
     m_drivingEncoder = m_drivingSparkMax.getEncoder();
     m_turningEncoder = m_turningSparkMax.getAbsoluteEncoder(Type.kDutyCycle);
     m_drivingPIDController = m_drivingSparkMax.getPIDController();
     m_turningPIDController = m_turningSparkMax.getPIDController();
-    m_drivingPIDController.setFeedbackDevice(m_drivingEncoder);
-    m_turningPIDController.setFeedbackDevice(m_turningEncoder);
+
+    m_chassisAngularOffset = chassisAngularOffset;
+
+    // Configure both SPARKS MAX in the background, alongside every other device. Callers must
+    // wait for DeviceConfigurator.awaitAll() before relying on the module's readings.
+    DeviceConfigurator.submit("SPARK MAX " + drivingCANId,
+        this::drivingConfigMatches, kDrivingConfigHash, this::configureDriving);
+    DeviceConfigurator.submit("SPARK MAX " + turningCANId,
+        this::turningConfigMatches, kTurningConfigHash, this::configureTurning);
+  }
+
+  /**
+   * Returns whether the driving SPARK MAX already holds the settings configureDriving() applies, as
+   * far as it can report them.
+   *
+   * @return Whether the readback matches.
+   */
+  private boolean drivingConfigMatches() {
+    return DeviceConfigurator.matches(
+            m_drivingEncoder.getPositionConversionFactor(), ModuleConstants.kDrivingEncoderPositionFactor)
+        && DeviceConfigurator.matches(
+            m_drivingEncoder.getVelocityConversionFactor(), ModuleConstants.kDrivingEncoderVelocityFactor)
+        && DeviceConfigurator.matches(m_drivingPIDController.getP(), ModuleConstants.kDrivingP)
+        && DeviceConfigurator.matches(m_drivingPIDController.getI(), ModuleConstants.kDrivingI)
+        && DeviceConfigurator.matches(m_drivingPIDController.getD(), ModuleConstants.kDrivingD)
+        && DeviceConfigurator.matches(m_drivingPIDController.getFF(), ModuleConstants.kDrivingFF)
+        && DeviceConfigurator.matches(m_drivingPIDController.getOutputMin(), ModuleConstants.kDrivingMinOutput)
+        && DeviceConfigurator.matches(m_drivingPIDController.getOutputMax(), ModuleConstants.kDrivingMaxOutput)
+        && m_drivingSparkMax.getIdleMode() == ModuleConstants.kDrivingMotorIdleMode
+        && !m_drivingSparkMax.getInverted()
+        && !m_drivingSparkMax.isFollower();
+  }
+
+  /**
+   * Returns whether the turning SPARK MAX already holds the settings configureTurning() applies, as
+   * far as it can report them.
+   *
+   * @return Whether the readback matches.
+   */
+  private boolean turningConfigMatches() {
+    return DeviceConfigurator.matches(
+            m_turningEncoder.getPositionConversionFactor(), ModuleConstants.kTurningEncoderPositionFactor)
+        && DeviceConfigurator.matches(
+            m_turningEncoder.getVelocityConversionFactor(), ModuleConstants.kTurningEncoderVelocityFactor)
+        && m_turningEncoder.getInverted() == ModuleConstants.kTurningEncoderInverted
+        && m_turningPIDController.getPositionPIDWrappingEnabled()
+        && DeviceConfigurator.matches(m_turningPIDController.getPositionPIDWrappingMinInput(),
+            ModuleConstants.kTurningEncoderPositionPIDMinInput)
+        && DeviceConfigurator.matches(m_turningPIDController.getPositionPIDWrappingMaxInput(),
+            ModuleConstants.kTurningEncoderPositionPIDMaxInput)
+        && DeviceConfigurator.matches(m_turningPIDController.getP(), ModuleConstants.kTurningP)
+        && DeviceConfigurator.matches(m_turningPIDController.getI(), ModuleConstants.kTurningI)
+        && DeviceConfigurator.matches(m_turningPIDController.getD(), ModuleConstants.kTurningD)
+        && DeviceConfigurator.matches(m_turningPIDController.getFF(), ModuleConstants.kTurningFF)
+        && DeviceConfigurator.matches(m_turningPIDController.getOutputMin(), ModuleConstants.kTurningMinOutput)
+        && DeviceConfigurator.matches(m_turningPIDController.getOutputMax(), ModuleConstants.kTurningMaxOutput)
+        && m_turningSparkMax.getIdleMode() == ModuleConstants.kTurningMotorIdleMode
+        && !m_turningSparkMax.getInverted()
+        && !m_turningSparkMax.isFollower();
+  }
+
+  /**
+   * Configures the driving SPARK MAX. Runs on a {@link DeviceConfigurator} thread.
+   *
+   * @param persist Whether to save the configuration to flash.
+   * @return Whether every configuration call succeeded.
+   */
+  private boolean configureDriving(boolean persist) {
+    String name = "SPARK MAX " + m_drivingSparkMax.getDeviceId();
+    boolean ok = true;
+
+    // Factory reset, so we get the SPARK MAX to a known state before configuring
+    // it. This is useful in case a SPARK MAX is swapped out.
+    ok &= DeviceConfigurator.checkRev(name, "restore factory defaults", m_drivingSparkMax::restoreFactoryDefaults);
+    ok &= DeviceConfigurator.checkRev(name, "set feedback device",
+        () -> m_drivingPIDController.setFeedbackDevice(m_drivingEncoder));
 
     // Apply position and velocity conversion factors for the driving encoder. The
     // native units for position and velocity are rotations and RPM, respectively,
     // but we want meters and meters per second to use with WPILib's swerve APIs.
-    m_drivingEncoder.setPositionConversionFactor(ModuleConstants.kDrivingEncoderPositionFactor);
-    m_drivingEncoder.setVelocityConversionFactor(ModuleConstants.kDrivingEncoderVelocityFactor);
+    ok &= DeviceConfigurator.checkRev(name, "set position conversion factor",
+        () -> m_drivingEncoder.setPositionConversionFactor(ModuleConstants.kDrivingEncoderPositionFactor));
+    ok &= DeviceConfigurator.checkRev(name, "set velocity conversion factor",
+        () -> m_drivingEncoder.setVelocityConversionFactor(ModuleConstants.kDrivingEncoderVelocityFactor));
+
+    // Set the PID gains for the driving motor. Note these are example gains, and you
+    // may need to tune them for your own robot!
+    ok &= DeviceConfigurator.checkRev(name, "set P", () -> m_drivingPIDController.setP(ModuleConstants.kDrivingP));
+    ok &= DeviceConfigurator.checkRev(name, "set I", () -> m_drivingPIDController.setI(ModuleConstants.kDrivingI));
+    ok &= DeviceConfigurator.checkRev(name, "set D", () -> m_drivingPIDController.setD(ModuleConstants.kDrivingD));
+    ok &= DeviceConfigurator.checkRev(name, "set FF", () -> m_drivingPIDController.setFF(ModuleConstants.kDrivingFF));
+    ok &= DeviceConfigurator.checkRev(name, "set output range",
+        () -> m_drivingPIDController.setOutputRange(ModuleConstants.kDrivingMinOutput,
+            ModuleConstants.kDrivingMaxOutput));
+
+    ok &= DeviceConfigurator.checkRev(name, "set idle mode",
+        () -> m_drivingSparkMax.setIdleMode(ModuleConstants.kDrivingMotorIdleMode));
+    ok &= DeviceConfigurator.checkRev(name, "set current limit",
+        () -> m_drivingSparkMax.setSmartCurrentLimit(ModuleConstants.kDrivingMotorCurrentLimit));
+
+    // Only send the status frames we read, as often as we need them. These are not saved by
+    // burnFlash(), so they are applied on every boot.
+    StatusFrameUtil.apply(m_drivingSparkMax, ModuleConstants.kDrivingStatusFramePeriods);
+
+    // Save the SPARK MAX configuration if it changed. If a SPARK MAX browns out during
+    // operation, it will maintain the above configuration.
+    if (persist) {
+      ok &= DeviceConfigurator.checkRev(name, "burn flash", m_drivingSparkMax::burnFlash);
+    }
+
+    ok &= DeviceConfigurator.checkRev(name, "reset position", () -> m_drivingEncoder.setPosition(0));
+    // The factory reset dropped any setpoint sent before
+    m_drivingWrites.invalidate();
+    return ok;
+  }
+
+  /**
+   * Configures the turning SPARK MAX. Runs on a {@link DeviceConfigurator} thread.
+   *
+   * @param persist Whether to save the configuration to flash.
+   * @return Whether every configuration call succeeded.
+   */
+  private boolean configureTurning(boolean persist) {
+    String name = "SPARK MAX " + m_turningSparkMax.getDeviceId();
+    boolean ok = true;
+
+    // Factory reset, so we get the SPARK MAX to a known state before configuring
+    // it. This is useful in case a SPARK MAX is swapped out.
+    ok &= DeviceConfigurator.checkRev(name, "restore factory defaults", m_turningSparkMax::restoreFactoryDefaults);
+    ok &= DeviceConfigurator.checkRev(name, "set feedback device",
+        () -> m_turningPIDController.setFeedbackDevice(m_turningEncoder));
 
     // Apply position and velocity conversion factors for the turning encoder. We
     // want these in radians and radians per second to use with WPILib's swerve
     // APIs.
-    m_turningEncoder.setPositionConversionFactor(ModuleConstants.kTurningEncoderPositionFactor);
-    m_turningEncoder.setVelocityConversionFactor(ModuleConstants.kTurningEncoderVelocityFactor);
+    ok &= DeviceConfigurator.checkRev(name, "set position conversion factor",
+        () -> m_turningEncoder.setPositionConversionFactor(ModuleConstants.kTurningEncoderPositionFactor));
+    ok &= DeviceConfigurator.checkRev(name, "set velocity conversion factor",
+        () -> m_turningEncoder.setVelocityConversionFactor(ModuleConstants.kTurningEncoderVelocityFactor));
 
     // Invert the turning encoder, since the output shaft rotates in the opposite direction of
     // the steering motor in the MAXSwerve Module.
-    m_turningEncoder.setInverted(ModuleConstants.kTurningEncoderInverted);
+    ok &= DeviceConfigurator.checkRev(name, "invert encoder",
+        () -> m_turningEncoder.setInverted(ModuleConstants.kTurningEncoderInverted));
 
     // Enable PID wrap around for the turning motor. This will allow the PID
     // controller to go through 0 to get to the setpoint i.e. going from 350 degrees
     // to 10 degrees will go through 0 rather than the other direction which is a
     // longer route.
-    m_turningPIDController.setPositionPIDWrappingEnabled(true);
-    m_turningPIDController.setPositionPIDWrappingMinInput(ModuleConstants.kTurningEncoderPositionPIDMinInput);
-    m_turningPIDController.setPositionPIDWrappingMaxInput(ModuleConstants.kTurningEncoderPositionPIDMaxInput);
-
-    // Set the PID gains for the driving motor. Note these are example gains, and you
-    // may need to tune them for your own robot!
-    m_drivingPIDController.setP(ModuleConstants.kDrivingP);
-    m_drivingPIDController.setI(ModuleConstants.kDrivingI);
-    m_drivingPIDController.setD(ModuleConstants.kDrivingD);
-    m_drivingPIDController.setFF(ModuleConstants.kDrivingFF);
-    m_drivingPIDController.setOutputRange(ModuleConstants.kDrivingMinOutput,
-        ModuleConstants.kDrivingMaxOutput);
+    ok &= DeviceConfigurator.checkRev(name, "enable PID wrapping",
+        () -> m_turningPIDController.setPositionPIDWrappingEnabled(true));
+    ok &= DeviceConfigurator.checkRev(name, "set PID wrapping min input",
+        () -> m_turningPIDController.setPositionPIDWrappingMinInput(ModuleConstants.kTurningEncoderPositionPIDMinInput));
+    ok &= DeviceConfigurator.checkRev(name, "set PID wrapping max input",
+        () -> m_turningPIDController.setPositionPIDWrappingMaxInput(ModuleConstants.kTurningEncoderPositionPIDMaxInput));
 
     // Set the PID gains for the turning motor. Note these are example gains, and you
     // may need to tune them for your own robot!
-    m_turningPIDController.setP(ModuleConstants.kTurningP);
-    m_turningPIDController.setI(ModuleConstants.kTurningI);
-    m_turningPIDController.setD(ModuleConstants.kTurningD);
-    m_turningPIDController.setFF(ModuleConstants.kTurningFF);
-    m_turningPIDController.setOutputRange(ModuleConstants.kTurningMinOutput,
-        ModuleConstants.kTurningMaxOutput);
-
-    m_drivingSparkMax.setIdleMode(ModuleConstants.kDrivingMotorIdleMode);
-    m_turningSparkMax.setIdleMode(ModuleConstants.kTurningMotorIdleMode);
-    m_drivingSparkMax.setSmartCurrentLimit(ModuleConstants.kDrivingMotorCurrentLimit);
-    m_turningSparkMax.setSmartCurrentLimit(ModuleConstants.kTurningMotorCurrentLimit);
-
-    // Save the SPARK MAX configurations. If a SPARK MAX browns out during
-    // operation, it will maintain the above configurations.
-    m_drivingSparkMax.burnFlash();
-    m_turningSparkMax.burnFlash();
+    ok &= DeviceConfigurator.checkRev(name, "set P", () -> m_turningPIDController.setP(ModuleConstants.kTurningP));
+    ok &= DeviceConfigurator.checkRev(name, "set I", () -> m_turningPIDController.setI(ModuleConstants.kTurningI));
+    ok &= DeviceConfigurator.checkRev(name, "set D", () -> m_turningPIDController.setD(ModuleConstants.kTurningD));
+    ok &= DeviceConfigurator.checkRev(name, "set FF", () -> m_turningPIDController.setFF(ModuleConstants.kTurningFF));
+    ok &= DeviceConfigurator.checkRev(name, "set output range",
+        () -> m_turningPIDController.setOutputRange(ModuleConstants.kTurningMinOutput,
+            ModuleConstants.kTurningMaxOutput));
 
-    m_chassisAngularOffset = chassisAngularOffset;
-    m_desiredState.angle = new Rotation2d(m_turningEncoder.getPosition());
-    m_drivingEncoder.setPosition(0);
+    ok &= DeviceConfigurator.checkRev(name, "set idle mode",
+        () -> m_turningSparkMax.setIdleMode(ModuleConstants.kTurningMotorIdleMode));
+    ok &= DeviceConfigurator.checkRev(name, "set current limit",
+        () -> m_turningSparkMax.setSmartCurrentLimit(ModuleConstants.kTurningMotorCurrentLimit));
+
+    // Only send the status frames we read, as often as we need them. These are not saved by
+    // burnFlash(), so they are applied on every boot.
+    StatusFrameUtil.apply(m_turningSparkMax, ModuleConstants.kTurningStatusFramePeriods);
+
+    // Save the SPARK MAX configuration if it changed. If a SPARK MAX browns out during
+    // operation, it will maintain the above configuration.
+    if (persist) {
+      ok &= DeviceConfigurator.checkRev(name, "burn flash", m_turningSparkMax::burnFlash);
+    }
+    // The factory reset dropped any setpoint sent before
+    m_turningWrites.invalidate();
+    return ok;
   }
 
   /**
-   * Returns the current state of the module.
+   * Reads the turning encoder position and driving encoder velocity once for this loop. The state
+   * and setpoint methods use these readings until the next call.
+   */
+  public void readSensors() {
+    m_turningPosition = m_turningEncoder.getPosition();
+    m_drivingVelocity = m_drivingEncoder.getVelocity();
+  }
+
+  /**
+   * Returns the state of the module as of the last {@link #readSensors()}.
    *
    * @return The current state of the module.
    */
   public SwerveModuleState getState() {
     // Apply chassis angular offset to the encoder position to get the position
     // relative to the chassis.
-    return new SwerveModuleState(m_drivingEncoder.getVelocity(),
-        new Rotation2d(m_turningEncoder.getPosition() - m_chassisAngularOffset));
+    return new SwerveModuleState(m_drivingVelocity, getChassisRelativeAngle(m_turningPosition));
+  }
+
+  /**
+   * Returns the driving speed as of the last {@link #readSensors()}.
+   *
+   * @return The wheel speed in meters per second.
+   */
+  public double getMeasuredSpeedMetersPerSecond() {
+    return m_drivingVelocity;
+  }
+
+  /**
+   * Returns the angle of the module relative to the chassis as of the last {@link #readSensors()}.
+   *
+   * @return The module angle in radians, with the chassis angular offset applied.
+   */
+  public double getMeasuredAngleRadians() {
+    return m_turningPosition - m_chassisAngularOffset;
   }
 
   /**
@@ -135,34 +309,112 @@ public class MAXSwerveModule {
         new Rotation2d(m_turningEncoder.getPosition() - m_chassisAngularOffset));
   }
 
+  /**
+   * Fills a caller-owned position with the current position of the module. Unlike
+   * {@link #getPosition()} this does not allocate a new {@link SwerveModulePosition}, and only
+   * allocates a new {@link Rotation2d} when the turning encoder reading has changed.
+   *
+   * @param position The position to update in place.
+   */
+  public void updatePosition(SwerveModulePosition position) {
+    position.distanceMeters = m_drivingEncoder.getPosition();
+    position.angle = getChassisRelativeAngle(m_turningEncoder.getPosition());
+  }
+
+  /**
+   * Returns the distance driven by the module.
+   *
+   * @return The driving encoder position in meters.
+   */
+  public double getDrivePositionMeters() {
+    return m_drivingEncoder.getPosition();
+  }
+
+  /**
+   * Returns the angle of the module relative to the chassis.
+   *
+   * @return The module angle in radians, with the chassis angular offset applied.
+   */
+  public double getChassisAngleRadians() {
+    return m_turningEncoder.getPosition() - m_chassisAngularOffset;
+  }
+
+  /**
+   * Returns the chassis-relative angle for a turning encoder reading, reusing the previous
+   * {@link Rotation2d} when the reading has not changed.
+   *
+   * @param turningPosition The turning encoder reading in radians.
+   * @return The angle of the module relative to the chassis.
+   */
+  private Rotation2d getChassisRelativeAngle(double turningPosition) {
+    if (turningPosition != m_lastTurningPosition) {
+      m_lastTurningPosition = turningPosition;
+      m_chassisRelativeAngle = new Rotation2d(turningPosition - m_chassisAngularOffset);
+    }
+    return m_chassisRelativeAngle;
+  }
+
   /**
    * Sets the desired state for the module.
    *
    * @param desiredState Desired state with speed and angle.
    */
   public void setDesiredState(SwerveModuleState desiredState) {
+    setDesiredState(desiredState.speedMetersPerSecond, desiredState.angle.getRadians());
+  }
+
+  /**
+   * Sets the desired state for the module without allocating.
+   *
+   * @param speedMetersPerSecond Desired speed of the module.
+   * @param angleRadians Desired angle of the module relative to the chassis.
+   */
+  public void setDesiredState(double speedMetersPerSecond, double angleRadians) {
+    if (setTurningAngle(angleRadians)) {
+      speedMetersPerSecond = -speedMetersPerSecond;
+    }
+
+    // Command the driving SPARK MAX towards its setpoint, skipping setpoints that have not changed
+    // since they were last sent.
+    if (m_drivingWrites.shouldWrite(speedMetersPerSecond, CANSparkMax.ControlType.kVelocity)) {
+      m_drivingPIDController.setReference(speedMetersPerSecond, CANSparkMax.ControlType.kVelocity);
+    }
+  }
+
+  /**
+   * Commands the turning SPARK MAX towards an angle, turning no further than 90 degrees.
+   *
+   * @param angleRadians Desired angle of the module relative to the chassis.
+   * @return Whether the wheel will face the opposite way, so the driving output must be negated.
+   */
+  private boolean setTurningAngle(double angleRadians) {
     // Apply chassis angular offset to the desired state.
-    SwerveModuleState correctedDesiredState = new SwerveModuleState();
-    correctedDesiredState.speedMetersPerSecond = desiredState.speedMetersPerSecond;
-    correctedDesiredState.angle = desiredState.angle.plus(Rotation2d.fromRadians(m_chassisAngularOffset));
+    double correctedAngle = angleRadians + m_chassisAngularOffset;
 
     // Optimize the reference state to avoid spinning further than 90 degrees.
-    SwerveModuleState optimizedDesiredState = SwerveModuleState.optimize(correctedDesiredState,
-        new Rotation2d(m_turningEncoder.getPosition()));
-
-    // Command driving and turning SPARKS MAX towards their respective setpoints.
-    m_drivingPIDController.setReference(optimizedDesiredState.speedMetersPerSecond, CANSparkMax.ControlType.kVelocity);
-    m_turningPIDController.setReference(optimizedDesiredState.angle.getRadians(), CANSparkMax.ControlType.kPosition);
+    boolean reversed =
+        Math.abs(MathUtil.angleModulus(correctedAngle - m_turningPosition)) > Math.PI / 2;
+    if (reversed) {
+      correctedAngle += Math.PI;
+    }
 
-    m_desiredState = desiredState;
+    double turningSetpoint = MathUtil.angleModulus(correctedAngle);
+    if (m_turningWrites.shouldWrite(turningSetpoint, CANSparkMax.ControlType.kPosition)) {
+      m_turningPIDController.setReference(turningSetpoint, CANSparkMax.ControlType.kPosition);
+    }
+    return reversed;
   }
 
   public void setVoltageState(Double voltage, SwerveModuleState m_swerveModuleState) {
-    // First use turning PID controller to turn wheels to be perpendicular to X formation
-    setDesiredState(m_swerveModuleState);
+    // First use turning PID controller to turn wheels to be perpendicular to X formation. Only the
+    // turning setpoint is sent, so the driving SPARK MAX only ever sees the voltage below and its
+    // writes can be coalesced.
+    setTurningAngle(m_swerveModuleState.angle.getRadians());
 
     // Second use driving PID controller to set wheel voltage to output received from limelight aim commmand
-    m_drivingPIDController.setReference(voltage, CANSparkMax.ControlType.kVoltage);
+    if (m_drivingWrites.shouldWrite(voltage, CANSparkMax.ControlType.kVoltage)) {
+      m_drivingPIDController.setReference(voltage, CANSparkMax.ControlType.kVoltage);
+    }
   }
 
   /** Zeroes all the SwerveModule encoders. */
@@ -0,0 +1,82 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.subsystems;
+
+import com.ctre.phoenix.sensors.WPI_PigeonIMU;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+import frc.utils.DoubleRingBuffer;
+
+/**
+ * Samples the swerve module encoders and the gyro on a {@link Notifier} running faster than the
+ * main robot loop, and queues timestamped samples for {@link DriveSubsystem} to integrate.
+ *
+ * <p>Each sample is laid out as the FPGA timestamp in seconds, the gyro angle in degrees, the four
+ * module drive distances in meters, then the four chassis-relative module angles in radians. Modules
+ * are ordered front left, front right, rear left, rear right.
+ */
+class OdometryThread {
+  static final int kTimestampIndex = 0;
+  static final int kGyroAngleIndex = 1;
+  static final int kDistanceIndex = 2;
+  static final int kAngleIndex = 6;
+  static final int kSampleSize = 10;
+
+  private final MAXSwerveModule[] m_modules;
+  private final WPI_PigeonIMU m_gyro;
+  private final DoubleRingBuffer m_samples;
+  private final double[] m_sample = new double[kSampleSize];
+  private final Notifier m_notifier = new Notifier(this::sample);
+
+  /**
+   * Creates a new OdometryThread. Sampling does not begin until {@link #start(double)} is called.
+   *
+   * @param modules The swerve modules, ordered front left, front right, rear left, rear right.
+   * @param gyro The gyro sensor.
+   * @param capacity The number of samples that can be queued before new samples are dropped.
+   */
+  OdometryThread(MAXSwerveModule[] modules, WPI_PigeonIMU gyro, int capacity) {
+    m_modules = modules;
+    m_gyro = gyro;
+    m_samples = new DoubleRingBuffer(capacity, kSampleSize);
+    m_notifier.setName("OdometryThread");
+  }
+
+  /**
+   * Starts sampling at a fixed rate.
+   *
+   * @param frequencyHz The sampling rate in hertz.
+   */
+  void start(double frequencyHz) {
+    m_notifier.startPeriodic(1.0 / frequencyHz);
+  }
+
+  /**
+   * Copies the oldest queued sample into a caller-owned array. Must only be called from the main
+   * robot thread.
+   *
+   * @param sample The array to fill; must hold {@link #kSampleSize} values.
+   * @return true if a sample was available.
+   */
+  boolean poll(double[] sample) {
+    return m_samples.poll(sample);
+  }
+
+  /** Discards all queued samples. Must only be called from the main robot thread. */
+  void clear() {
+    m_samples.clear();
+  }
+
+  private void sample() {
+    m_sample[kTimestampIndex] = Timer.getFPGATimestamp();
+    m_sample[kGyroAngleIndex] = m_gyro.getAngle();
+    for (int i = 0; i < m_modules.length; i++) {
+      m_sample[kDistanceIndex + i] = m_modules[i].getDrivePositionMeters();
+      m_sample[kAngleIndex + i] = m_modules[i].getChassisAngleRadians();
+    }
+    m_samples.offer(m_sample);
+  }
+}
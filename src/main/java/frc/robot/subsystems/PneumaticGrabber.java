@@ -13,6 +13,7 @@ import edu.wpi.first.wpilibj.PneumaticsModuleType;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.GrabberConstants;
+import frc.utils.SignalLogger;
 
 public class PneumaticGrabber extends SubsystemBase {
 
@@ -22,16 +23,21 @@ public class PneumaticGrabber extends SubsystemBase {
       GrabberConstants.kGrabberSolenoidPorts[0],
       GrabberConstants.kGrabberSolenoidPorts[1]);
 
+  // Last value sent to the solenoid, so it can be logged without reading it back
+  private DoubleSolenoid.Value m_value = kOff;
+
+  private final SignalLogger.Channel m_stateLog = SignalLogger.addChannel("Grabber/State", 1);
+
   /** Creates a new PneumaticGrabber. */
   public PneumaticGrabber() {
-    m_grabberSolenoid.set(kOff);
+    setValue(kOff);
   }
 
   // Open grabber
   public CommandBase openGrabber() {
     return runOnce(
         () -> {
-            m_grabberSolenoid.set(kReverse);
+            setValue(kReverse);
         });
   }
 
@@ -40,13 +46,20 @@ public class PneumaticGrabber extends SubsystemBase {
     return runOnce(
         () -> {
           if (GrabberConstants.isStart != 0)
-            m_grabberSolenoid.set(kForward);
+            setValue(kForward);
         });
   }
 
   @Override
   public void periodic() {
     // This method will be called once per scheduler run
+    m_stateLog.set(0, m_value.ordinal());
+    m_stateLog.append();
+  }
+
+  private void setValue(DoubleSolenoid.Value value) {
+    m_value = value;
+    m_grabberSolenoid.set(value);
   }
 
   @Override
@@ -0,0 +1,249 @@
+package frc.utils;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import edu.wpi.first.wpilibj.DataLogManager;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Measures how much the robot loop allocates and how long the garbage collector pauses it, to tell
+ * whether loop time spikes are caused by GC.
+ *
+ * <p>Each loop, {@link #endCycle(long, boolean)} reads the bytes allocated so far by the control
+ * thread and publishes the difference from the previous loop, with an alarm when a loop allocates
+ * more than its budget. Every collection is reported by the JVM through a GC notification; the
+ * notification thread hands the pause to the control thread through a {@link DoubleRingBuffer}.
+ * Pauses are counted in fixed duration buckets, and a pause that overlaps an overrun loop is
+ * logged, whichever of the two is seen first.
+ *
+ * <p>Nothing is registered until {@link #start(long)} is called. Until then
+ * {@link #endCycle(long, boolean)} returns immediately.
+ */
+public final class AllocationMonitor {
+  // Upper bounds of the pause buckets; the last bucket holds everything longer
+  private static final double[] kPauseBucketMillis = {1, 2, 5, 10, 20};
+  private static final int kRecentCount = 8;
+  private static final long kPublishPeriodNanos = 1_000_000_000L;
+
+  // A pause as handed from the notification thread: start time (ms since JVM start), duration
+  // (ms) and the index of the collector that ran
+  private static final int kPauseStartIndex = 0;
+  private static final int kPauseDurationIndex = 1;
+  private static final int kPauseCollectorIndex = 2;
+  private static final int kPauseSampleSize = 3;
+
+  private static boolean s_started = false;
+  private static com.sun.management.ThreadMXBean s_threadBean;
+  private static long s_threadId;
+  private static long s_budgetBytes;
+  private static long s_uptimeOffsetNanos;
+  private static String[] s_collectorNames;
+
+  private static final DoubleRingBuffer s_pauses = new DoubleRingBuffer(32, kPauseSampleSize);
+  private static final double[] s_listenerSample = new double[kPauseSampleSize];
+  private static final double[] s_pause = new double[kPauseSampleSize];
+
+  // Owned by the control thread
+  private static long s_lastAllocatedBytes = -1;
+  private static long s_windowBytes = 0;
+  private static long s_windowStartNanos = 0;
+  private static long s_budgetOverruns = 0;
+  private static long s_pauseCount = 0;
+  private static double s_pauseTotalMillis = 0;
+  private static double s_pauseMaxMillis = 0;
+  private static long s_pausesDuringOverruns = 0;
+  private static final long[] s_pauseBuckets = new long[kPauseBucketMillis.length + 1];
+
+  // Recent pauses and overrun loops, as [start, end] in ms since JVM start
+  private static final double[] s_recentPauseStart = new double[kRecentCount];
+  private static final double[] s_recentPauseEnd = new double[kRecentCount];
+  private static final int[] s_recentPauseCollector = new int[kRecentCount];
+  private static int s_recentPauseIndex = 0;
+  private static final double[] s_recentOverrunStart = new double[kRecentCount];
+  private static final double[] s_recentOverrunEnd = new double[kRecentCount];
+  private static int s_recentOverrunIndex = 0;
+
+  private static Telemetry.DoubleSignal s_bytesPerLoopSignal;
+  private static Telemetry.DoubleSignal s_allocationRateSignal;
+  private static Telemetry.BooleanSignal s_budgetExceededSignal;
+  private static Telemetry.DoubleSignal s_budgetOverrunsSignal;
+  private static Telemetry.DoubleSignal s_pauseCountSignal;
+  private static Telemetry.DoubleSignal s_pauseTotalSignal;
+  private static Telemetry.DoubleSignal s_pauseMaxSignal;
+  private static Telemetry.DoubleSignal s_pausesDuringOverrunsSignal;
+  private static final Telemetry.DoubleSignal[] s_pauseBucketSignals =
+      new Telemetry.DoubleSignal[kPauseBucketMillis.length + 1];
+
+  private AllocationMonitor() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * Starts monitoring the calling thread, which must be the control thread.
+   *
+   * @param budgetBytes The most a loop should allocate before the alarm is raised.
+   */
+  public static synchronized void start(long budgetBytes) {
+    if (s_started) {
+      return;
+    }
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (!(threadBean instanceof com.sun.management.ThreadMXBean)
+        || !((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()) {
+      DataLogManager.log("AllocationMonitor: per-thread allocation is not supported by this JVM");
+      return;
+    }
+    s_threadBean = (com.sun.management.ThreadMXBean) threadBean;
+    s_threadBean.setThreadAllocatedMemoryEnabled(true);
+    s_threadId = Thread.currentThread().getId();
+    s_budgetBytes = budgetBytes;
+    s_uptimeOffsetNanos =
+        System.nanoTime() - ManagementFactory.getRuntimeMXBean().getUptime() * 1_000_000L;
+
+    s_bytesPerLoopSignal = Telemetry.addDouble("Alloc/Bytes per loop");
+    s_allocationRateSignal = Telemetry.addDouble("Alloc/KB per second");
+    s_budgetExceededSignal = Telemetry.addBoolean("Alloc/Budget exceeded");
+    s_budgetOverrunsSignal = Telemetry.addDouble("Alloc/Budget overruns");
+    s_pauseCountSignal = Telemetry.addDouble("GC/Pauses");
+    s_pauseTotalSignal = Telemetry.addDouble("GC/Pause total ms");
+    s_pauseMaxSignal = Telemetry.addDouble("GC/Pause max ms");
+    s_pausesDuringOverrunsSignal = Telemetry.addDouble("GC/Pauses during overruns");
+    for (int i = 0; i < s_pauseBucketSignals.length; i++) {
+      String label = i < kPauseBucketMillis.length
+          ? "under " + (int) kPauseBucketMillis[i] + " ms"
+          : "over " + (int) kPauseBucketMillis[i - 1] + " ms";
+      s_pauseBucketSignals[i] = Telemetry.addDouble("GC/Pauses " + label);
+    }
+
+    List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    s_collectorNames = new String[collectors.size()];
+    for (int i = 0; i < collectors.size(); i++) {
+      GarbageCollectorMXBean collector = collectors.get(i);
+      s_collectorNames[i] = collector.getName();
+      if (collector instanceof NotificationEmitter) {
+        ((NotificationEmitter) collector).addNotificationListener(
+            AllocationMonitor::handleNotification, null, i);
+      }
+    }
+
+    s_windowStartNanos = System.nanoTime();
+    s_started = true;
+  }
+
+  /**
+   * Records the allocations of the loop that just ended and any GC pauses reported since. Must be
+   * called from the control thread once per loop.
+   *
+   * @param cycleStartNanos The {@link System#nanoTime()} at the start of the loop.
+   * @param overran Whether the loop overran.
+   */
+  public static void endCycle(long cycleStartNanos, boolean overran) {
+    if (!s_started) {
+      return;
+    }
+    long now = System.nanoTime();
+
+    long allocatedBytes = s_threadBean.getThreadAllocatedBytes(s_threadId);
+    if (s_lastAllocatedBytes >= 0) {
+      long loopBytes = allocatedBytes - s_lastAllocatedBytes;
+      s_windowBytes += loopBytes;
+      s_bytesPerLoopSignal.set(loopBytes);
+      boolean exceeded = loopBytes > s_budgetBytes;
+      s_budgetExceededSignal.set(exceeded);
+      if (exceeded) {
+        s_budgetOverruns++;
+        s_budgetOverrunsSignal.set(s_budgetOverruns);
+      }
+    }
+    s_lastAllocatedBytes = allocatedBytes;
+
+    if (overran) {
+      double start = toUptimeMillis(cycleStartNanos);
+      double end = toUptimeMillis(now);
+      for (int i = 0; i < kRecentCount; i++) {
+        if (s_recentPauseEnd[i] > start && s_recentPauseStart[i] < end) {
+          logPauseDuringOverrun(
+              s_recentPauseCollector[i], s_recentPauseEnd[i] - s_recentPauseStart[i], end - start);
+        }
+      }
+      s_recentOverrunStart[s_recentOverrunIndex] = start;
+      s_recentOverrunEnd[s_recentOverrunIndex] = end;
+      s_recentOverrunIndex = (s_recentOverrunIndex + 1) % kRecentCount;
+    }
+
+    while (s_pauses.poll(s_pause)) {
+      recordPause();
+    }
+
+    if (now - s_windowStartNanos >= kPublishPeriodNanos) {
+      s_allocationRateSignal.set(s_windowBytes / 1024.0 / ((now - s_windowStartNanos) * 1e-9));
+      s_windowBytes = 0;
+      s_windowStartNanos = now;
+    }
+  }
+
+  private static void recordPause() {
+    double start = s_pause[kPauseStartIndex];
+    double duration = s_pause[kPauseDurationIndex];
+    int collector = (int) s_pause[kPauseCollectorIndex];
+    s_pauseCount++;
+    s_pauseTotalMillis += duration;
+    s_pauseMaxMillis = Math.max(s_pauseMaxMillis, duration);
+    int bucket = 0;
+    while (bucket < kPauseBucketMillis.length && duration >= kPauseBucketMillis[bucket]) {
+      bucket++;
+    }
+    s_pauseBuckets[bucket]++;
+
+    s_pauseCountSignal.set(s_pauseCount);
+    s_pauseTotalSignal.set(s_pauseTotalMillis);
+    s_pauseMaxSignal.set(s_pauseMaxMillis);
+    s_pauseBucketSignals[bucket].set(s_pauseBuckets[bucket]);
+
+    double end = start + duration;
+    for (int i = 0; i < kRecentCount; i++) {
+      if (s_recentOverrunEnd[i] > start && s_recentOverrunStart[i] < end) {
+        logPauseDuringOverrun(
+            collector, duration, s_recentOverrunEnd[i] - s_recentOverrunStart[i]);
+      }
+    }
+    s_recentPauseStart[s_recentPauseIndex] = start;
+    s_recentPauseEnd[s_recentPauseIndex] = end;
+    s_recentPauseCollector[s_recentPauseIndex] = collector;
+    s_recentPauseIndex = (s_recentPauseIndex + 1) % kRecentCount;
+  }
+
+  private static void logPauseDuringOverrun(int collector, double pauseMillis, double loopMillis) {
+    s_pausesDuringOverruns++;
+    s_pausesDuringOverrunsSignal.set(s_pausesDuringOverruns);
+    DataLogManager.log(String.format(
+        "GC pause of %.1f ms (%s) during a %.1f ms loop overrun",
+        pauseMillis, s_collectorNames[collector], loopMillis));
+  }
+
+  private static double toUptimeMillis(long nanos) {
+    return (nanos - s_uptimeOffsetNanos) * 1e-6;
+  }
+
+  /** Hands a GC pause to the control thread. Runs on the JVM's notification thread. */
+  private static void handleNotification(Notification notification, Object collectorIndex) {
+    if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(
+        notification.getType())) {
+      return;
+    }
+    GarbageCollectionNotificationInfo info =
+        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    // Collectors may notify from more than one thread; the ring buffer takes one producer
+    synchronized (s_listenerSample) {
+      s_listenerSample[kPauseStartIndex] = info.getGcInfo().getStartTime();
+      s_listenerSample[kPauseDurationIndex] = info.getGcInfo().getDuration();
+      s_listenerSample[kPauseCollectorIndex] = (Integer) collectorIndex;
+      s_pauses.offer(s_listenerSample);
+    }
+  }
+}
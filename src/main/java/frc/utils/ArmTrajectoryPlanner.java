@@ -0,0 +1,303 @@
+package frc.utils;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+
+/**
+ * Plans coordinated moves of a two-axis arm, rotation plus extension, in joint space.
+ *
+ * <p>Each axis gets a time-optimal trapezoid profile to its goal. The faster axis is then slowed,
+ * by scaling down its velocity and acceleration limits, so both axes start and finish at the same
+ * time and move at once. The combined path is checked against a safe envelope at evenly
+ * spaced samples. If any sample leaves the envelope, the planner falls back to retracting first,
+ * rotating while retracted, and then extending, and checks that path the same way. A goal outside
+ * the envelope, or a move for which neither path is safe, is refused: the plan holds the start
+ * position instead.
+ *
+ * <p>A move may start while the arm is still moving. The plan then begins by bringing both axes
+ * to rest at their acceleration limits, and plans from where they stop, so the velocity never
+ * jumps. A refused move still decelerates to that stopping point before holding.
+ *
+ * <p>Plans are built when the goal changes, and {@link #sample(double, double[])} is cheap enough to
+ * call every loop while following one.
+ */
+public class ArmTrajectoryPlanner {
+  /** Index of the rotation position in a sample. */
+  public static final int kRotationIndex = 0;
+  /** Index of the rotation velocity in a sample. */
+  public static final int kRotationVelocityIndex = 1;
+  /** Index of the extension position in a sample. */
+  public static final int kExtensionIndex = 2;
+  /** Index of the extension velocity in a sample. */
+  public static final int kExtensionVelocityIndex = 3;
+  /** Number of values in a sample. */
+  public static final int kSampleSize = 4;
+
+  private static final int kMaxSegments = 4;
+
+  /** The set of arm positions that are safe to pass through. */
+  @FunctionalInterface
+  public interface Envelope {
+    /**
+     * Returns whether an arm position is safe.
+     *
+     * @param rotation The arm rotation.
+     * @param extension The arm extension.
+     * @return true if the arm may be at this position.
+     */
+    boolean contains(double rotation, double extension);
+  }
+
+  private final TrapezoidProfile.Constraints m_rotationConstraints;
+  private final TrapezoidProfile.Constraints m_extensionConstraints;
+  private final Envelope m_envelope;
+  private final double m_retractedExtension;
+  private final int m_checkSamples;
+
+  // The current plan, as consecutive coordinated segments
+  private final TrapezoidProfile[] m_rotationProfiles = new TrapezoidProfile[kMaxSegments];
+  private final TrapezoidProfile[] m_extensionProfiles = new TrapezoidProfile[kMaxSegments];
+  private final double[] m_segmentEndTimes = new double[kMaxSegments];
+  private int m_segmentCount = 0;
+  private boolean m_fallback = false;
+  private final double[] m_checkSample = new double[kSampleSize];
+
+  /**
+   * Constructs an ArmTrajectoryPlanner.
+   *
+   * @param rotationConstraints The rotation velocity and acceleration limits.
+   * @param extensionConstraints The extension velocity and acceleration limits.
+   * @param envelope The safe envelope.
+   * @param retractedExtension The extension to retract to when a direct move is unsafe.
+   * @param checkSamples The number of points at which a direct move is checked against the
+   *     envelope.
+   */
+  public ArmTrajectoryPlanner(
+      TrapezoidProfile.Constraints rotationConstraints,
+      TrapezoidProfile.Constraints extensionConstraints,
+      Envelope envelope,
+      double retractedExtension,
+      int checkSamples) {
+    m_rotationConstraints = rotationConstraints;
+    m_extensionConstraints = extensionConstraints;
+    m_envelope = envelope;
+    m_retractedExtension = retractedExtension;
+    m_checkSamples = checkSamples;
+  }
+
+  /**
+   * Plans a move from rest at one position to rest at another. If the goal is outside the envelope,
+   * or neither the direct move nor the fallback stays inside it, the move is refused and the plan
+   * holds the start position.
+   *
+   * @param startRotation The current rotation.
+   * @param startExtension The current extension.
+   * @param goalRotation The goal rotation.
+   * @param goalExtension The goal extension.
+   * @return Whether a safe plan to the goal was found.
+   */
+  public boolean plan(
+      double startRotation, double startExtension, double goalRotation, double goalExtension) {
+    return plan(startRotation, 0, startExtension, 0, goalRotation, goalExtension);
+  }
+
+  /**
+   * Plans a move from a moving start to rest at a goal. The plan first brings both axes to rest,
+   * then moves from there as {@link #plan(double, double, double, double)} would. If the move is
+   * refused, the plan only brings the arm to rest.
+   *
+   * @param startRotation The current rotation.
+   * @param startRotationVelocity The current rotation velocity.
+   * @param startExtension The current extension.
+   * @param startExtensionVelocity The current extension velocity.
+   * @param goalRotation The goal rotation.
+   * @param goalExtension The goal extension.
+   * @return Whether a safe plan to the goal was found.
+   */
+  public boolean plan(
+      double startRotation,
+      double startRotationVelocity,
+      double startExtension,
+      double startExtensionVelocity,
+      double goalRotation,
+      double goalExtension) {
+    // Where each axis comes to rest when decelerated at its limit
+    double restRotation = startRotation
+        + stoppingDistance(startRotationVelocity, m_rotationConstraints.maxAcceleration);
+    double restExtension = startExtension
+        + stoppingDistance(startExtensionVelocity, m_extensionConstraints.maxAcceleration);
+
+    m_fallback = false;
+    if (m_envelope.contains(goalRotation, goalExtension)) {
+      startPlan(startRotation, startRotationVelocity, startExtension, startExtensionVelocity);
+      addSegment(restRotation, restExtension, goalRotation, goalExtension);
+      if (isSafe()) {
+        return true;
+      }
+
+      // Retract, rotate, then extend
+      m_fallback = true;
+      startPlan(startRotation, startRotationVelocity, startExtension, startExtensionVelocity);
+      addSegment(restRotation, restExtension, restRotation, m_retractedExtension);
+      addSegment(restRotation, m_retractedExtension, goalRotation, m_retractedExtension);
+      addSegment(goalRotation, m_retractedExtension, goalRotation, goalExtension);
+      if (isSafe()) {
+        return true;
+      }
+    }
+
+    // Refused: come to rest and hold there
+    m_fallback = false;
+    startPlan(startRotation, startRotationVelocity, startExtension, startExtensionVelocity);
+    if (m_segmentCount == 0) {
+      addSegment(restRotation, restExtension, restRotation, restExtension);
+    }
+    return false;
+  }
+
+  /**
+   * Returns the duration of the current plan.
+   *
+   * @return The time the plan takes, in seconds.
+   */
+  public double getTotalTime() {
+    return m_segmentCount == 0 ? 0 : m_segmentEndTimes[m_segmentCount - 1];
+  }
+
+  /**
+   * Returns whether the current plan had to fall back to retract, rotate and extend.
+   *
+   * @return true if the direct move left the envelope.
+   */
+  public boolean isFallback() {
+    return m_fallback;
+  }
+
+  /**
+   * Samples the current plan.
+   *
+   * @param timeSeconds Time since the start of the plan.
+   * @param sample Filled with the positions and velocities of both axes, see the index constants.
+   */
+  public void sample(double timeSeconds, double[] sample) {
+    int segment = 0;
+    while (segment < m_segmentCount - 1 && timeSeconds > m_segmentEndTimes[segment]) {
+      segment++;
+    }
+    double segmentStart = segment == 0 ? 0 : m_segmentEndTimes[segment - 1];
+    double t = Math.min(timeSeconds, m_segmentEndTimes[segment]) - segmentStart;
+
+    TrapezoidProfile.State rotation = m_rotationProfiles[segment].calculate(t);
+    TrapezoidProfile.State extension = m_extensionProfiles[segment].calculate(t);
+    sample[kRotationIndex] = rotation.position;
+    sample[kRotationVelocityIndex] = rotation.velocity;
+    sample[kExtensionIndex] = extension.position;
+    sample[kExtensionVelocityIndex] = extension.velocity;
+  }
+
+  /**
+   * Clears the plan and, if either axis is moving, adds a first segment that decelerates each axis
+   * to rest at its own acceleration limit.
+   */
+  private void startPlan(
+      double rotation, double rotationVelocity, double extension, double extensionVelocity) {
+    m_segmentCount = 0;
+    if (rotationVelocity == 0 && extensionVelocity == 0) {
+      return;
+    }
+    TrapezoidProfile rotationStop = new TrapezoidProfile(
+        m_rotationConstraints,
+        new TrapezoidProfile.State(
+            rotation + stoppingDistance(rotationVelocity, m_rotationConstraints.maxAcceleration),
+            0),
+        new TrapezoidProfile.State(rotation, rotationVelocity));
+    TrapezoidProfile extensionStop = new TrapezoidProfile(
+        m_extensionConstraints,
+        new TrapezoidProfile.State(
+            extension + stoppingDistance(extensionVelocity, m_extensionConstraints.maxAcceleration),
+            0),
+        new TrapezoidProfile.State(extension, extensionVelocity));
+    appendSegment(
+        rotationStop, extensionStop, Math.max(rotationStop.totalTime(), extensionStop.totalTime()));
+  }
+
+  private static double stoppingDistance(double velocity, double maxAcceleration) {
+    return velocity * Math.abs(velocity) / (2 * maxAcceleration);
+  }
+
+  /** Appends a segment in which both axes move at once and finish together. */
+  private void addSegment(
+      double startRotation, double startExtension, double goalRotation, double goalExtension) {
+    TrapezoidProfile.State rotationStart = new TrapezoidProfile.State(startRotation, 0);
+    TrapezoidProfile.State rotationGoal = new TrapezoidProfile.State(goalRotation, 0);
+    TrapezoidProfile.State extensionStart = new TrapezoidProfile.State(startExtension, 0);
+    TrapezoidProfile.State extensionGoal = new TrapezoidProfile.State(goalExtension, 0);
+
+    TrapezoidProfile rotation =
+        new TrapezoidProfile(m_rotationConstraints, rotationGoal, rotationStart);
+    TrapezoidProfile extension =
+        new TrapezoidProfile(m_extensionConstraints, extensionGoal, extensionStart);
+
+    // Scaling the velocity limit of a rest-to-rest trapezoid by k and its acceleration limit by
+    // k^2 scales its duration by exactly 1 / k, so the faster axis is scaled to take as long as the
+    // slower one.
+    double duration = Math.max(rotation.totalTime(), extension.totalTime());
+    if (duration > 0) {
+      if (rotation.totalTime() < duration) {
+        rotation = new TrapezoidProfile(
+            scale(m_rotationConstraints, rotation.totalTime() / duration),
+            rotationGoal,
+            rotationStart);
+      } else {
+        extension = new TrapezoidProfile(
+            scale(m_extensionConstraints, extension.totalTime() / duration),
+            extensionGoal,
+            extensionStart);
+      }
+    }
+
+    appendSegment(rotation, extension, duration);
+  }
+
+  private void appendSegment(
+      TrapezoidProfile rotation, TrapezoidProfile extension, double duration) {
+    m_rotationProfiles[m_segmentCount] = rotation;
+    m_extensionProfiles[m_segmentCount] = extension;
+    m_segmentEndTimes[m_segmentCount] =
+        (m_segmentCount == 0 ? 0 : m_segmentEndTimes[m_segmentCount - 1]) + duration;
+    m_segmentCount++;
+  }
+
+  private static TrapezoidProfile.Constraints scale(
+      TrapezoidProfile.Constraints constraints, double factor) {
+    // A zero-length axis has nothing to scale; keep the limits valid
+    if (factor <= 0) {
+      return constraints;
+    }
+    return new TrapezoidProfile.Constraints(
+        constraints.maxVelocity * factor, constraints.maxAcceleration * factor * factor);
+  }
+
+  /**
+   * Checks the current plan against the envelope at evenly spaced samples, and at the end of every
+   * segment so no segment of a fallback plan goes unchecked.
+   */
+  private boolean isSafe() {
+    double totalTime = getTotalTime();
+    for (int i = 0; i <= m_checkSamples; i++) {
+      if (!isSafeAt(totalTime * i / m_checkSamples)) {
+        return false;
+      }
+    }
+    for (int i = 0; i < m_segmentCount; i++) {
+      if (!isSafeAt(m_segmentEndTimes[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean isSafeAt(double timeSeconds) {
+    sample(timeSeconds, m_checkSample);
+    return m_envelope.contains(m_checkSample[kRotationIndex], m_checkSample[kExtensionIndex]);
+  }
+}
@@ -0,0 +1,208 @@
+package frc.utils;
+
+import com.ctre.phoenix.ErrorCode;
+import com.revrobotics.REVLibError;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Preferences;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Configures motor controllers concurrently at boot. Each device's configuration runs on its own
+ * thread, so the blocking CAN round trips of different devices overlap instead of running one after
+ * another on the main thread.
+ *
+ * <p>The configuration is only asked to persist (e.g. call burnFlash()) when the device does not
+ * already hold it. Before anything is applied, the device's settings are read back and compared
+ * with the desired ones, so a swapped or reset controller is always saved. Settings the device
+ * cannot report, such as its current limit, are covered by a hash instead: the hash last saved is
+ * kept in {@link Preferences}, and a change in the hash also persists. The configuration itself is
+ * still applied every boot.
+ */
+public final class DeviceConfigurator {
+  /** Number of times a failing configuration call is attempted before giving up. */
+  public static final int kMaxAttempts = 3;
+
+  private static final String kPreferencesPrefix = "ConfigHash/";
+
+  private static ExecutorService s_executor;
+  private static final List<Future<?>> s_pending = new ArrayList<>();
+  private static long s_startNanos;
+
+  /** Reads back the settings of one device. */
+  @FunctionalInterface
+  public interface Readback {
+    /**
+     * Compares the settings the device reports with the desired configuration. Called before the
+     * configuration is applied, so the device reports what it loaded from flash.
+     *
+     * @return Whether every setting the device can report already matches.
+     */
+    boolean matches();
+  }
+
+  /** The configuration of one device. */
+  @FunctionalInterface
+  public interface Configuration {
+    /**
+     * Applies the configuration to the device.
+     *
+     * @param persist Whether the configuration changed since it was last saved and should be
+     *     written to the device's flash.
+     * @return Whether every configuration call succeeded.
+     */
+    boolean configure(boolean persist);
+  }
+
+  private DeviceConfigurator() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * Starts configuring a device whose settings are saved as they are set, so the configuration is
+   * never asked to persist.
+   *
+   * @param name A unique name for the device, e.g. "Talon SRX 11".
+   * @param configuration The configuration to apply.
+   */
+  public static void submit(String name, Configuration configuration) {
+    submit(name, () -> true, 0, configuration);
+  }
+
+  /**
+   * Starts configuring a device in the background.
+   *
+   * @param name A unique name for the device, e.g. "SPARK MAX 4".
+   * @param readback Compares the device's current settings with the desired configuration.
+   * @param configHash A hash of the desired settings the device cannot report, see
+   *     {@link #hash(Object...)}.
+   * @param configuration The configuration to apply.
+   */
+  public static synchronized void submit(
+      String name, Readback readback, int configHash, Configuration configuration) {
+    if (s_executor == null) {
+      s_startNanos = System.nanoTime();
+      s_executor = Executors.newCachedThreadPool(
+          runnable -> {
+            Thread thread = new Thread(runnable, "DeviceConfigurator");
+            thread.setDaemon(true);
+            return thread;
+          });
+    }
+
+    s_pending.add(s_executor.submit(() -> {
+      String key = kPreferencesPrefix + name;
+      boolean persist = !readback.matches() || Preferences.getInt(key, 0) != configHash;
+      // Only remember the hash once the configuration was fully applied and saved
+      if (configuration.configure(persist) && persist) {
+        Preferences.setInt(key, configHash);
+      }
+    }));
+  }
+
+  /**
+   * Blocks until every submitted configuration has finished, then reports how long configuration
+   * took.
+   */
+  public static synchronized void awaitAll() {
+    for (Future<?> future : s_pending) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        DriverStation.reportError(
+            "Device configuration failed: " + e.getCause(), e.getCause().getStackTrace());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+
+    if (s_executor != null) {
+      DataLogManager.log(
+          "Configured " + s_pending.size() + " devices in "
+              + (System.nanoTime() - s_startNanos) / 1_000_000 + " ms");
+      s_executor.shutdown();
+      s_executor = null;
+    }
+    s_pending.clear();
+  }
+
+  /**
+   * Runs a REV configuration call, retrying it if it fails.
+   *
+   * @param device The device name, for error reporting.
+   * @param description What the call configures, for error reporting.
+   * @param call The configuration call.
+   * @return Whether the call eventually succeeded.
+   */
+  public static boolean checkRev(String device, String description, Supplier<REVLibError> call) {
+    REVLibError error = REVLibError.kOk;
+    for (int attempt = 0; attempt < kMaxAttempts; attempt++) {
+      error = call.get();
+      if (error == REVLibError.kOk) {
+        return true;
+      }
+    }
+    DriverStation.reportWarning(device + ": failed to " + description + ": " + error, false);
+    return false;
+  }
+
+  /**
+   * Runs a CTRE configuration call, retrying it if it fails.
+   *
+   * @param device The device name, for error reporting.
+   * @param description What the call configures, for error reporting.
+   * @param call The configuration call.
+   * @return Whether the call eventually succeeded.
+   */
+  public static boolean checkCtre(String device, String description, Supplier<ErrorCode> call) {
+    ErrorCode error = ErrorCode.OK;
+    for (int attempt = 0; attempt < kMaxAttempts; attempt++) {
+      error = call.get();
+      if (error == ErrorCode.OK) {
+        return true;
+      }
+    }
+    DriverStation.reportWarning(device + ": failed to " + description + ": " + error, false);
+    return false;
+  }
+
+  /**
+   * Returns whether a setting read back from a device matches the desired value. Devices store
+   * settings as 32-bit floats, so both are compared at that precision.
+   *
+   * @param readback The value the device reports.
+   * @param desired The desired value.
+   * @return Whether the values match.
+   */
+  public static boolean matches(double readback, double desired) {
+    return (float) readback == (float) desired;
+  }
+
+  /**
+   * Hashes configuration values in a way that is stable across reboots. Enums hash by name, since
+   * their default hash codes change every run.
+   *
+   * @param values The configuration values.
+   * @return The hash.
+   */
+  public static int hash(Object... values) {
+    int hash = 1;
+    for (Object value : values) {
+      int valueHash;
+      if (value instanceof Enum) {
+        valueHash = ((Enum<?>) value).name().hashCode();
+      } else {
+        valueHash = value == null ? 0 : value.hashCode();
+      }
+      hash = 31 * hash + valueHash;
+    }
+    return hash;
+  }
+}
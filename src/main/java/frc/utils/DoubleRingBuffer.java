@@ -0,0 +1,101 @@
+package frc.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed-capacity ring buffer for handing samples from one producer thread to one consumer thread
+ * without locks. Every sample is a fixed number of doubles (the stride) and is copied in and out of
+ * caller-owned arrays, so neither side allocates. When the buffer is full, new samples are dropped
+ * and counted rather than overwriting samples the consumer has not read yet.
+ */
+public class DoubleRingBuffer {
+  private final double[] m_data;
+  private final int m_stride;
+  private final int m_capacity;
+
+  // Monotonic counts of samples written and read. Each is only advanced by its own side, and is
+  // published with a release store so the other side sees the sample data before the count.
+  private final AtomicLong m_writeCount = new AtomicLong();
+  private final AtomicLong m_readCount = new AtomicLong();
+  private final AtomicLong m_droppedCount = new AtomicLong();
+
+  /**
+   * Constructs a DoubleRingBuffer.
+   *
+   * @param capacity The maximum number of samples held at once.
+   * @param stride The number of doubles in each sample.
+   */
+  public DoubleRingBuffer(int capacity, int stride) {
+    if (capacity <= 0 || stride <= 0) {
+      throw new IllegalArgumentException("Capacity and stride must be positive");
+    }
+    m_capacity = capacity;
+    m_stride = stride;
+    m_data = new double[capacity * stride];
+  }
+
+  /**
+   * Appends a sample. Must only be called from the producer thread.
+   *
+   * @param sample The sample to copy in; must hold at least {@code stride} values.
+   * @return true if the sample was stored, false if the buffer was full and it was dropped.
+   */
+  public boolean offer(double[] sample) {
+    long write = m_writeCount.get();
+    if (write - m_readCount.get() >= m_capacity) {
+      m_droppedCount.incrementAndGet();
+      return false;
+    }
+    System.arraycopy(sample, 0, m_data, (int) (write % m_capacity) * m_stride, m_stride);
+    m_writeCount.lazySet(write + 1);
+    return true;
+  }
+
+  /**
+   * Removes the oldest sample. Must only be called from the consumer thread.
+   *
+   * @param sample The array to copy the sample into; must hold at least {@code stride} values.
+   * @return true if a sample was copied out, false if the buffer was empty.
+   */
+  public boolean poll(double[] sample) {
+    long read = m_readCount.get();
+    if (read == m_writeCount.get()) {
+      return false;
+    }
+    System.arraycopy(m_data, (int) (read % m_capacity) * m_stride, sample, 0, m_stride);
+    m_readCount.lazySet(read + 1);
+    return true;
+  }
+
+  /** Discards every sample currently in the buffer. Must only be called from the consumer thread. */
+  public void clear() {
+    m_readCount.lazySet(m_writeCount.get());
+  }
+
+  /**
+   * Returns the number of samples waiting to be read.
+   *
+   * @return The number of samples in the buffer.
+   */
+  public int size() {
+    return (int) (m_writeCount.get() - m_readCount.get());
+  }
+
+  /**
+   * Returns the number of doubles in each sample.
+   *
+   * @return The sample stride.
+   */
+  public int getStride() {
+    return m_stride;
+  }
+
+  /**
+   * Returns how many samples have been dropped because the buffer was full.
+   *
+   * @return The number of dropped samples.
+   */
+  public long getDroppedCount() {
+    return m_droppedCount.get();
+  }
+}
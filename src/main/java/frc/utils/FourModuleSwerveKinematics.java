@@ -0,0 +1,120 @@
+package frc.utils;
+
+/**
+ * Closed-form swerve kinematics for a drivetrain with exactly four modules whose positions are
+ * centered on the robot's center of rotation. Works on caller-owned primitive arrays, so none of
+ * the methods allocate, unlike {@link edu.wpi.first.math.kinematics.SwerveDriveKinematics} which
+ * goes through generic matrix math and returns new objects on every call.
+ *
+ * <p>Module arrays are ordered the same way as the module positions passed to the constructor.
+ * Angles are in radians and speeds in meters per second.
+ */
+public class FourModuleSwerveKinematics {
+  /** The number of modules this class solves for. */
+  public static final int kNumModules = 4;
+
+  private final double[] m_moduleX;
+  private final double[] m_moduleY;
+  private final double m_sumSquaredRadius;
+
+  /**
+   * Constructs a FourModuleSwerveKinematics.
+   *
+   * @param moduleX The x position of each module relative to the robot center, in meters.
+   * @param moduleY The y position of each module relative to the robot center, in meters.
+   */
+  public FourModuleSwerveKinematics(double[] moduleX, double[] moduleY) {
+    if (moduleX.length != kNumModules || moduleY.length != kNumModules) {
+      throw new IllegalArgumentException("Exactly four module positions are required");
+    }
+
+    double sumX = 0;
+    double sumY = 0;
+    double sumSquaredRadius = 0;
+    for (int i = 0; i < kNumModules; i++) {
+      sumX += moduleX[i];
+      sumY += moduleY[i];
+      sumSquaredRadius += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+    }
+    // The forward kinematics below is only the least-squares solution when the modules are
+    // centered on the robot center.
+    if (Math.abs(sumX) > 1e-9 || Math.abs(sumY) > 1e-9) {
+      throw new IllegalArgumentException("Module positions must be centered on the robot center");
+    }
+
+    m_moduleX = moduleX.clone();
+    m_moduleY = moduleY.clone();
+    m_sumSquaredRadius = sumSquaredRadius;
+  }
+
+  /**
+   * Converts robot-relative chassis speeds into module speeds and angles. When a module would have
+   * no speed its angle is left unchanged, so the wheels hold their heading when the robot stops.
+   *
+   * @param vxMetersPerSecond Forward speed of the robot.
+   * @param vyMetersPerSecond Sideways speed of the robot, positive to the left.
+   * @param omegaRadiansPerSecond Angular rate of the robot, counterclockwise positive.
+   * @param speeds Filled with the speed of each module.
+   * @param angles Filled with the angle of each module; holds the previous angles on entry.
+   */
+  public void toModuleStates(
+      double vxMetersPerSecond,
+      double vyMetersPerSecond,
+      double omegaRadiansPerSecond,
+      double[] speeds,
+      double[] angles) {
+    for (int i = 0; i < kNumModules; i++) {
+      double moduleVx = vxMetersPerSecond - omegaRadiansPerSecond * m_moduleY[i];
+      double moduleVy = vyMetersPerSecond + omegaRadiansPerSecond * m_moduleX[i];
+      double speed = Math.sqrt(moduleVx * moduleVx + moduleVy * moduleVy);
+      speeds[i] = speed;
+      if (speed > 1e-9) {
+        angles[i] = Math.atan2(moduleVy, moduleVx);
+      }
+    }
+  }
+
+  /**
+   * Converts module speeds and angles into robot-relative chassis speeds. Passing module distance
+   * deltas instead of speeds gives the robot-relative twist instead.
+   *
+   * @param speeds The speed of each module.
+   * @param angles The angle of each module.
+   * @param chassisSpeeds Filled with vx, vy and omega, in that order.
+   */
+  public void toChassisSpeeds(double[] speeds, double[] angles, double[] chassisSpeeds) {
+    double sumVx = 0;
+    double sumVy = 0;
+    double sumMoment = 0;
+    for (int i = 0; i < kNumModules; i++) {
+      double moduleVx = speeds[i] * Math.cos(angles[i]);
+      double moduleVy = speeds[i] * Math.sin(angles[i]);
+      sumVx += moduleVx;
+      sumVy += moduleVy;
+      sumMoment += m_moduleX[i] * moduleVy - m_moduleY[i] * moduleVx;
+    }
+    chassisSpeeds[0] = sumVx / kNumModules;
+    chassisSpeeds[1] = sumVy / kNumModules;
+    chassisSpeeds[2] = sumMoment / m_sumSquaredRadius;
+  }
+
+  /**
+   * Scales module speeds down in place so that none exceeds the attainable maximum, keeping the
+   * ratios between modules so the robot still follows the requested path.
+   *
+   * @param speeds The module speeds to desaturate.
+   * @param maxSpeedMetersPerSecond The fastest any module can drive.
+   */
+  public static void desaturateWheelSpeeds(double[] speeds, double maxSpeedMetersPerSecond) {
+    double fastest = 0;
+    for (int i = 0; i < speeds.length; i++) {
+      fastest = Math.max(fastest, Math.abs(speeds[i]));
+    }
+    if (fastest > maxSpeedMetersPerSecond) {
+      double scale = maxSpeedMetersPerSecond / fastest;
+      for (int i = 0; i < speeds.length; i++) {
+        speeds[i] *= scale;
+      }
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package frc.utils;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A two-dimensional lookup table on a rectangular grid that interpolates bilinearly between its
+ * points, for setpoints that depend on two variables such as distance and target angle. It is the
+ * 2-D counterpart of {@link InterpolatingDoubleTable}: values are kept in one flat array, the cell
+ * is found with a binary search on each axis, and lookups never allocate.
+ *
+ * <p>Lookups outside the grid are clamped to its edges.
+ *
+ * <p>Grids are usually loaded from a CSV file at startup. The first row holds the column keys after
+ * a label cell; each following row holds its row key and then one value per column. Blank lines
+ * and lines starting with '#' are ignored:
+ *
+ * <pre>
+ * distance\angle, -20, 0, 20
+ * 1.0, 1400, 1450, 1400
+ * 2.0, 1650, 1700, 1650
+ * </pre>
+ */
+public class InterpolatingDoubleGrid {
+  private final double[] m_rowKeys;
+  private final double[] m_columnKeys;
+  // Row-major: the value at (row, column) is m_values[row * columns + column]
+  private final double[] m_values;
+
+  /**
+   * Constructs an InterpolatingDoubleGrid.
+   *
+   * @param rowKeys The row keys, in increasing order.
+   * @param columnKeys The column keys, in increasing order.
+   * @param values The values in row-major order, one per row and column.
+   */
+  public InterpolatingDoubleGrid(double[] rowKeys, double[] columnKeys, double[] values) {
+    if (rowKeys.length == 0 || columnKeys.length == 0) {
+      throw new IllegalArgumentException("A grid needs at least one row and one column");
+    }
+    if (values.length != rowKeys.length * columnKeys.length) {
+      throw new IllegalArgumentException(
+          "Expected " + rowKeys.length * columnKeys.length + " values, got " + values.length);
+    }
+    checkIncreasing(rowKeys, "Row");
+    checkIncreasing(columnKeys, "Column");
+    m_rowKeys = rowKeys.clone();
+    m_columnKeys = columnKeys.clone();
+    m_values = values.clone();
+  }
+
+  /**
+   * Loads a grid from a CSV file in the deploy directory.
+   *
+   * @param fileName The file name, relative to the deploy directory.
+   * @return The grid.
+   * @throws IOException If the file cannot be read or is malformed.
+   */
+  public static InterpolatingDoubleGrid fromDeployCsv(String fileName) throws IOException {
+    return fromCsv(Filesystem.getDeployDirectory().toPath().resolve(fileName));
+  }
+
+  /**
+   * Loads a grid from a CSV file.
+   *
+   * @param path The file to load.
+   * @return The grid.
+   * @throws IOException If the file cannot be read or is malformed.
+   */
+  public static InterpolatingDoubleGrid fromCsv(Path path) throws IOException {
+    List<String[]> rows = new ArrayList<>();
+    for (String line : Files.readAllLines(path)) {
+      String trimmed = line.trim();
+      if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+        rows.add(trimmed.split(","));
+      }
+    }
+    if (rows.size() < 2) {
+      throw new IOException(path + ": expected a header row and at least one data row");
+    }
+
+    try {
+      String[] header = rows.get(0);
+      double[] columnKeys = new double[header.length - 1];
+      for (int column = 0; column < columnKeys.length; column++) {
+        columnKeys[column] = Double.parseDouble(header[column + 1].trim());
+      }
+
+      double[] rowKeys = new double[rows.size() - 1];
+      double[] values = new double[rowKeys.length * columnKeys.length];
+      for (int row = 0; row < rowKeys.length; row++) {
+        String[] cells = rows.get(row + 1);
+        if (cells.length != columnKeys.length + 1) {
+          throw new IOException(
+              path + ": row " + (row + 1) + " has " + (cells.length - 1) + " values, expected "
+                  + columnKeys.length);
+        }
+        rowKeys[row] = Double.parseDouble(cells[0].trim());
+        for (int column = 0; column < columnKeys.length; column++) {
+          values[row * columnKeys.length + column] = Double.parseDouble(cells[column + 1].trim());
+        }
+      }
+      return new InterpolatingDoubleGrid(rowKeys, columnKeys, values);
+    } catch (IllegalArgumentException e) {
+      // NumberFormatException is an IllegalArgumentException too
+      throw new IOException(path + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Looks up a value, interpolating bilinearly between the four surrounding points.
+   *
+   * @param rowKey The row key to look up (does not have to exist)
+   * @param columnKey The column key to look up (does not have to exist)
+   * @return The interpolated value.
+   */
+  public double getInterpolated(double rowKey, double columnKey) {
+    int row = findCell(m_rowKeys, rowKey);
+    int column = findCell(m_columnKeys, columnKey);
+    double rowT = fraction(m_rowKeys, row, rowKey);
+    double columnT = fraction(m_columnKeys, column, columnKey);
+
+    // Clamp single-row or single-column grids to their only cell
+    int nextRow = Math.min(row + 1, m_rowKeys.length - 1);
+    int nextColumn = Math.min(column + 1, m_columnKeys.length - 1);
+    int columns = m_columnKeys.length;
+    double v00 = m_values[row * columns + column];
+    double v01 = m_values[row * columns + nextColumn];
+    double v10 = m_values[nextRow * columns + column];
+    double v11 = m_values[nextRow * columns + nextColumn];
+
+    double top = v00 + (v01 - v00) * columnT;
+    double bottom = v10 + (v11 - v10) * columnT;
+    return top + (bottom - top) * rowT;
+  }
+
+  /** Returns the index of the lower corner of the cell containing a key, clamped to the grid. */
+  private static int findCell(double[] keys, double key) {
+    if (keys.length < 2 || key <= keys[0]) {
+      return 0;
+    }
+    if (key >= keys[keys.length - 1]) {
+      return keys.length - 2;
+    }
+    int index = Arrays.binarySearch(keys, key);
+    return index >= 0 ? Math.min(index, keys.length - 2) : -index - 2;
+  }
+
+  /** Returns how far a key is across a cell, clamped to [0, 1]. */
+  private static double fraction(double[] keys, int cell, double key) {
+    if (keys.length < 2) {
+      return 0;
+    }
+    double t = (key - keys[cell]) / (keys[cell + 1] - keys[cell]);
+    return Math.max(0, Math.min(1, t));
+  }
+
+  private static void checkIncreasing(double[] keys, String axis) {
+    for (int i = 1; i < keys.length; i++) {
+      if (!(keys[i] > keys[i - 1])) {
+        throw new IllegalArgumentException(axis + " keys must be strictly increasing");
+      }
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package frc.utils;
+
+import java.util.Arrays;
+
+/**
+ * A sorted lookup table of doubles that interpolates between its points. This does the job of an
+ * {@code InterpolatingTreeMap<InterpolatingDouble, InterpolatingDouble>}, but keys and values are
+ * kept in primitive arrays and the segment is found with a binary search, so lookups never
+ * allocate.
+ *
+ * <p>Lookups outside the table return the value of the nearest point, like
+ * {@link InterpolatingTreeMap}. Between points the table interpolates linearly, or with a
+ * monotone cubic (Fritsch-Carlson) spline. The spline is smooth, and never overshoots the data, so
+ * a monotonic table gives monotonic results.
+ *
+ * <p>Tables are meant to be filled at startup. {@link #put(double, double)} keeps the arrays sorted
+ * and recomputes the spline tangents, so it costs O(n).
+ */
+public class InterpolatingDoubleTable {
+  /** How values between points are interpolated. */
+  public enum Mode {
+    LINEAR,
+    MONOTONE_CUBIC
+  }
+
+  private final Mode m_mode;
+  private double[] m_keys = new double[8];
+  private double[] m_values = new double[8];
+  private double[] m_tangents = new double[8];
+  private int m_size = 0;
+
+  /**
+   * Constructs an InterpolatingDoubleTable.
+   *
+   * @param mode How values between points are interpolated.
+   */
+  public InterpolatingDoubleTable(Mode mode) {
+    m_mode = mode;
+  }
+
+  /** Constructs an InterpolatingDoubleTable that interpolates linearly. */
+  public InterpolatingDoubleTable() {
+    this(Mode.LINEAR);
+  }
+
+  /**
+   * Inserts a point, replacing the value of an existing point with the same key.
+   *
+   * @param key Key for inserted data
+   * @param value Value for inserted data
+   */
+  public void put(double key, double value) {
+    int index = Arrays.binarySearch(m_keys, 0, m_size, key);
+    if (index >= 0) {
+      m_values[index] = value;
+    } else {
+      index = -index - 1;
+      if (m_size == m_keys.length) {
+        m_keys = Arrays.copyOf(m_keys, m_size * 2);
+        m_values = Arrays.copyOf(m_values, m_size * 2);
+        m_tangents = Arrays.copyOf(m_tangents, m_size * 2);
+      }
+      System.arraycopy(m_keys, index, m_keys, index + 1, m_size - index);
+      System.arraycopy(m_values, index, m_values, index + 1, m_size - index);
+      m_keys[index] = key;
+      m_values[index] = value;
+      m_size++;
+    }
+
+    if (m_mode == Mode.MONOTONE_CUBIC) {
+      computeTangents();
+    }
+  }
+
+  /**
+   * Returns the number of points in the table.
+   *
+   * @return The number of points.
+   */
+  public int size() {
+    return m_size;
+  }
+
+  /**
+   * Looks up a value, interpolating between the surrounding points.
+   *
+   * @param key Lookup for a value (does not have to exist)
+   * @return The interpolated value, the value of the nearest point if the key is outside the table,
+   *     or NaN if the table is empty.
+   */
+  public double getInterpolated(double key) {
+    if (m_size == 0) {
+      return Double.NaN;
+    }
+    if (key <= m_keys[0]) {
+      return m_values[0];
+    }
+    if (key >= m_keys[m_size - 1]) {
+      return m_values[m_size - 1];
+    }
+
+    int index = Arrays.binarySearch(m_keys, 0, m_size, key);
+    if (index >= 0) {
+      return m_values[index];
+    }
+    // The key is strictly between lower and lower + 1
+    int lower = -index - 2;
+    double x0 = m_keys[lower];
+    double h = m_keys[lower + 1] - x0;
+    double t = (key - x0) / h;
+    double y0 = m_values[lower];
+    double y1 = m_values[lower + 1];
+
+    if (m_mode == Mode.LINEAR) {
+      return y0 + (y1 - y0) * t;
+    }
+
+    // Cubic Hermite basis functions
+    double t2 = t * t;
+    double t3 = t2 * t;
+    double h00 = 2 * t3 - 3 * t2 + 1;
+    double h10 = t3 - 2 * t2 + t;
+    double h01 = -2 * t3 + 3 * t2;
+    double h11 = t3 - t2;
+    return h00 * y0 + h10 * h * m_tangents[lower] + h01 * y1 + h11 * h * m_tangents[lower + 1];
+  }
+
+  /** Computes Fritsch-Carlson tangents, so the cubic spline preserves the data's monotonicity. */
+  private void computeTangents() {
+    if (m_size < 2) {
+      Arrays.fill(m_tangents, 0, m_size, 0);
+      return;
+    }
+
+    // Start from the average of the neighbouring secants, or zero at local extrema
+    m_tangents[0] = secant(0);
+    m_tangents[m_size - 1] = secant(m_size - 2);
+    for (int i = 1; i < m_size - 1; i++) {
+      double before = secant(i - 1);
+      double after = secant(i);
+      m_tangents[i] = before * after <= 0 ? 0 : (before + after) / 2;
+    }
+
+    // Limit the tangents on each segment so the segment cannot overshoot
+    for (int i = 0; i < m_size - 1; i++) {
+      double secant = secant(i);
+      if (secant == 0) {
+        m_tangents[i] = 0;
+        m_tangents[i + 1] = 0;
+        continue;
+      }
+      double a = m_tangents[i] / secant;
+      double b = m_tangents[i + 1] / secant;
+      double magnitude = a * a + b * b;
+      if (magnitude > 9) {
+        double tau = 3 / Math.sqrt(magnitude);
+        m_tangents[i] = tau * a * secant;
+        m_tangents[i + 1] = tau * b * secant;
+      }
+    }
+  }
+
+  private double secant(int i) {
+    return (m_values[i + 1] - m_values[i]) / (m_keys[i + 1] - m_keys[i]);
+  }
+}
@@ -0,0 +1,177 @@
+package frc.utils;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * A bounded series of values keyed by increasing timestamps, such as a sensor history. It is the
+ * bounded time-series counterpart of {@link InterpolatingTreeMap}: samples live in a circular array,
+ * so appending a sample and evicting the oldest one are both O(1), and lookups binary search the
+ * timestamps and interpolate linearly between the two surrounding samples.
+ *
+ * <p>One thread may append while any number of threads read. Readers never block the writer: each
+ * lookup reads under a sequence counter and retries if the writer changed the series meanwhile.
+ * Nothing allocates after construction.
+ */
+public class InterpolatingTimeSeries {
+  private final double[] m_timestamps;
+  private final double[] m_values;
+
+  // Index of the oldest sample and the number of samples. Only changed by the writer.
+  private int m_head = 0;
+  private int m_size = 0;
+
+  // Odd while the writer is changing the series
+  private volatile long m_sequence = 0;
+
+  /**
+   * Constructs an InterpolatingTimeSeries.
+   *
+   * @param capacity The maximum number of samples to keep.
+   */
+  public InterpolatingTimeSeries(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    m_timestamps = new double[capacity];
+    m_values = new double[capacity];
+  }
+
+  /**
+   * Appends a sample, evicting the oldest sample if the series is full. A timestamp that is not
+   * newer than the latest sample replaces the latest sample instead. Must only be called from the
+   * writer thread.
+   *
+   * @param timestampSeconds The time of the sample.
+   * @param value The value of the sample.
+   */
+  public void add(double timestampSeconds, double value) {
+    beginWrite();
+    append(timestampSeconds, value);
+    endWrite();
+  }
+
+  /**
+   * Appends many samples at once, as if by calling {@link #add(double, double)} for each. Readers
+   * see either none or all of them. Must only be called from the writer thread.
+   *
+   * @param timestampsSeconds The times of the samples, in increasing order.
+   * @param values The values of the samples.
+   */
+  public void addAll(double[] timestampsSeconds, double[] values) {
+    if (timestampsSeconds.length != values.length) {
+      throw new IllegalArgumentException("Timestamps and values must have the same length");
+    }
+    beginWrite();
+    for (int i = 0; i < timestampsSeconds.length; i++) {
+      append(timestampsSeconds[i], values[i]);
+    }
+    endWrite();
+  }
+
+  /** Removes every sample. Must only be called from the writer thread. */
+  public void clear() {
+    beginWrite();
+    m_head = 0;
+    m_size = 0;
+    endWrite();
+  }
+
+  /**
+   * Returns the number of samples.
+   *
+   * @return The number of samples in the series.
+   */
+  public int size() {
+    while (true) {
+      long sequence = m_sequence;
+      int size = m_size;
+      VarHandle.loadLoadFence();
+      if ((sequence & 1) == 0 && sequence == m_sequence) {
+        return size;
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * Interpolates the value at a timestamp. Timestamps outside the series return the nearest
+   * sample. Safe to call from any thread.
+   *
+   * @param timestampSeconds The time to look up.
+   * @return The interpolated value, or NaN if the series is empty.
+   */
+  public double getInterpolated(double timestampSeconds) {
+    while (true) {
+      long sequence = m_sequence;
+      if ((sequence & 1) == 0) {
+        double value = interpolate(timestampSeconds);
+        VarHandle.loadLoadFence();
+        if (sequence == m_sequence) {
+          return value;
+        }
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  private void beginWrite() {
+    m_sequence++;
+    // Keep the data writes after the odd sequence number
+    VarHandle.releaseFence();
+  }
+
+  private void endWrite() {
+    m_sequence++;
+  }
+
+  private void append(double timestampSeconds, double value) {
+    int capacity = m_timestamps.length;
+    int index;
+    if (m_size > 0 && timestampSeconds <= m_timestamps[(m_head + m_size - 1) % capacity]) {
+      index = (m_head + m_size - 1) % capacity;
+    } else if (m_size < capacity) {
+      index = (m_head + m_size) % capacity;
+      m_size++;
+    } else {
+      // Full: overwrite the oldest sample and advance the head
+      index = m_head;
+      m_head = (m_head + 1) % capacity;
+    }
+    m_timestamps[index] = timestampSeconds;
+    m_values[index] = value;
+  }
+
+  /**
+   * Interpolates without synchronization. The result is only meaningful if the sequence number did
+   * not change while it ran, but it never throws on an inconsistent read.
+   */
+  private double interpolate(double timestampSeconds) {
+    int capacity = m_timestamps.length;
+    int head = m_head;
+    int size = Math.min(m_size, capacity);
+    if (size == 0) {
+      return Double.NaN;
+    }
+
+    // Find the first sample at or after the requested time
+    int low = 0;
+    int high = size - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (m_timestamps[(head + mid) % capacity] < timestampSeconds) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    int upper = (head + low) % capacity;
+    if (low == 0 || timestampSeconds >= m_timestamps[upper]) {
+      return m_values[upper];
+    }
+    int lower = (head + low - 1) % capacity;
+    double t =
+        (timestampSeconds - m_timestamps[lower]) / (m_timestamps[upper] - m_timestamps[lower]);
+    return m_values[lower] + (m_values[upper] - m_values[lower]) * t;
+  }
+}
@@ -48,9 +48,18 @@ public class InterpolatingTreeMap<
     return value;
   }
 
+  /**
+   * Inserts every key value pair in a map, trimming the tree as each is added if a max size is
+   * specified. For a bounded history of timestamped values see {@link InterpolatingTimeSeries},
+   * which evicts in O(1).
+   *
+   * @param map The data to insert
+   */
   @Override
   public void putAll(Map<? extends K, ? extends V> map) {
-    System.out.println("Unimplemented Method");
+    for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+      put(entry.getKey(), entry.getValue());
+    }
   }
 
   /**
@@ -0,0 +1,300 @@
+package frc.utils;
+
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringArrayPublisher;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Times each part of the robot loop, so a loop overrun can be blamed on the subsystem or command
+ * that caused it.
+ *
+ * <p>Code to be timed registers a {@link Section} once and wraps its work in
+ * {@link Section#start()} and {@link Section#stop()}; subsystems do this in {@code periodic()}.
+ * Commands are timed without changing them: the scheduler calls back after each command's
+ * {@code execute()}, and the time since the previous mark is charged to that command. The first
+ * command each loop is therefore also charged for polling the button bindings.
+ *
+ * <p>Each section keeps a histogram of its time per loop in fixed logarithmic buckets, so memory
+ * does not grow with run time. The p50, p99 and max of every section, and the worst sections by
+ * p99, are published once a second. When a loop takes longer than the overrun threshold, the
+ * time of every section in that loop is written to the DataLog and console.
+ */
+public final class LoopProfiler {
+  /** Most sections that can be registered, including one per command. */
+  public static final int kMaxSections = 24;
+
+  // Four linear buckets per power of two microseconds, so a bucket is at most 25% wide
+  private static final int kSubBucketBits = 2;
+  private static final int kSubBuckets = 1 << kSubBucketBits;
+  private static final int kBuckets = 25 * kSubBuckets;
+
+  private static final long kPublishPeriodNanos = 1_000_000_000L;
+  private static final int kTopOffenders = 5;
+
+  private static final Section[] s_sections = new Section[kMaxSections];
+  private static final Section[] s_sorted = new Section[kMaxSections];
+  private static int s_count = 0;
+  private static final Map<String, Section> s_sectionsByName = new HashMap<>();
+
+  private static final Section s_loop = addSection("Loop");
+  private static final Telemetry.DoubleSignal s_overrunSignal = Telemetry.addDouble("Loop/Overruns");
+  private static final StringArrayPublisher s_topPublisher =
+      NetworkTableInstance.getDefault()
+          .getTable("SmartDashboard")
+          .getStringArrayTopic("Loop/Top Offenders")
+          .publish();
+
+  private static long s_overrunNanos = 20_000_000L;
+  private static long s_lastMarkNanos = 0;
+  private static long s_lastPublishNanos = 0;
+  private static long s_overruns = 0;
+  private static boolean s_lastCycleOverran = false;
+
+  /** A timed part of the robot loop. */
+  public static final class Section {
+    private final String m_name;
+    private final long[] m_buckets = new long[kBuckets];
+    private long m_samples = 0;
+    private long m_maxNanos = 0;
+
+    // The time spent in this section during the current loop
+    private long m_startNanos = 0;
+    private long m_loopNanos = 0;
+    private boolean m_ran = false;
+
+    private final Telemetry.DoubleSignal m_p50Signal;
+    private final Telemetry.DoubleSignal m_p99Signal;
+    private final Telemetry.DoubleSignal m_maxSignal;
+    private double m_p99Millis = 0;
+
+    private Section(String name) {
+      m_name = name;
+      m_p50Signal = Telemetry.addDouble("Loop/" + name + "/p50 ms");
+      m_p99Signal = Telemetry.addDouble("Loop/" + name + "/p99 ms");
+      m_maxSignal = Telemetry.addDouble("Loop/" + name + "/max ms");
+    }
+
+    /** Starts timing. Must be called from the control thread. */
+    public void start() {
+      m_startNanos = System.nanoTime();
+    }
+
+    /** Stops timing and adds the time since {@link #start()} to this loop. */
+    public void stop() {
+      long now = System.nanoTime();
+      add(now - m_startNanos);
+      s_lastMarkNanos = now;
+    }
+
+    private void add(long nanos) {
+      m_loopNanos += nanos;
+      m_ran = true;
+    }
+
+    private void record(long nanos) {
+      m_buckets[bucketOf(nanos)]++;
+      m_samples++;
+      m_maxNanos = Math.max(m_maxNanos, nanos);
+    }
+
+    /** Returns the upper bound of the bucket holding a percentile, never more than the max. */
+    private double percentileMillis(double percentile) {
+      if (m_samples == 0) {
+        return 0;
+      }
+      long target = (long) Math.ceil(percentile * m_samples);
+      long seen = 0;
+      for (int i = 0; i < kBuckets; i++) {
+        seen += m_buckets[i];
+        if (seen >= target) {
+          return Math.min(bucketUpperBoundMicros(i) * 1e-3, m_maxNanos * 1e-6);
+        }
+      }
+      return m_maxNanos * 1e-6;
+    }
+  }
+
+  private LoopProfiler() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * Starts timing commands and sets the overrun threshold.
+   *
+   * @param scheduler The scheduler whose commands are timed.
+   * @param overrunSeconds Loops longer than this are logged.
+   */
+  public static void install(CommandScheduler scheduler, double overrunSeconds) {
+    s_overrunNanos = (long) (overrunSeconds * 1e9);
+    scheduler.onCommandExecute(LoopProfiler::commandExecuted);
+  }
+
+  /**
+   * Registers a section, or returns the existing section with the same name.
+   *
+   * @param name The name shown on the dashboard and in overrun reports.
+   * @return The section to time.
+   */
+  public static synchronized Section addSection(String name) {
+    Section section = s_sectionsByName.get(name);
+    if (section == null) {
+      if (s_count >= kMaxSections) {
+        throw new IllegalStateException("More than " + kMaxSections + " profiler sections registered");
+      }
+      section = new Section(name);
+      s_sections[s_count++] = section;
+      s_sectionsByName.put(name, section);
+    }
+    return section;
+  }
+
+  /** Marks the start of a loop. Must be called first thing in robotPeriodic(). */
+  public static void beginCycle() {
+    s_loop.start();
+    s_lastMarkNanos = s_loop.m_startNanos;
+  }
+
+  /**
+   * Marks the end of a loop: records every section that ran, logs a breakdown if the loop overran
+   * and publishes the statistics once a second. Must be called at the end of robotPeriodic(),
+   * before {@link Telemetry#commit()}.
+   */
+  public static void endCycle() {
+    long now = System.nanoTime();
+    s_loop.add(now - s_loop.m_startNanos);
+
+    s_lastCycleOverran = s_loop.m_loopNanos > s_overrunNanos;
+    if (s_lastCycleOverran) {
+      s_overruns++;
+      s_overrunSignal.set(s_overruns);
+      logOverrun();
+    }
+
+    for (int i = 0; i < s_count; i++) {
+      Section section = s_sections[i];
+      if (section.m_ran) {
+        section.record(section.m_loopNanos);
+        section.m_loopNanos = 0;
+        section.m_ran = false;
+      }
+    }
+
+    if (now - s_lastPublishNanos >= kPublishPeriodNanos) {
+      s_lastPublishNanos = now;
+      publish();
+    }
+  }
+
+  /**
+   * Returns when the most recent loop started.
+   *
+   * @return The {@link System#nanoTime()} at the start of the loop.
+   */
+  public static long getCycleStartNanos() {
+    return s_loop.m_startNanos;
+  }
+
+  /**
+   * Returns whether the most recent loop overran. Valid after {@link #endCycle()}.
+   *
+   * @return true if the loop took longer than the overrun threshold.
+   */
+  public static boolean didCycleOverrun() {
+    return s_lastCycleOverran;
+  }
+
+  private static void commandExecuted(Command command) {
+    long now = System.nanoTime();
+    // Keyed by name, so commands created on the fly share one section instead of piling up
+    String name = command.getName();
+    Section section = s_sectionsByName.get(name);
+    if (section == null && s_count < kMaxSections) {
+      section = addSection(name);
+    }
+    // Commands past the limit go untimed rather than failing the loop
+    if (section != null && section != s_loop) {
+      section.add(now - s_lastMarkNanos);
+    }
+    s_lastMarkNanos = now;
+  }
+
+  private static void logOverrun() {
+    StringBuilder report = new StringBuilder("Loop overrun: ");
+    appendMillis(report, s_loop.m_loopNanos).append(" ms");
+    int count = sortRanThisLoop();
+    for (int i = 0; i < count; i++) {
+      report.append(i == 0 ? " [" : ", ").append(s_sorted[i].m_name).append(' ');
+      appendMillis(report, s_sorted[i].m_loopNanos).append(" ms");
+    }
+    if (count > 0) {
+      report.append(']');
+    }
+    DataLogManager.log(report.toString());
+  }
+
+  /** Fills s_sorted with the sections that ran this loop, slowest first, and returns how many. */
+  private static int sortRanThisLoop() {
+    int count = 0;
+    for (int i = 0; i < s_count; i++) {
+      if (s_sections[i] != s_loop && s_sections[i].m_ran) {
+        s_sorted[count++] = s_sections[i];
+      }
+    }
+    Arrays.sort(s_sorted, 0, count, (a, b) -> Long.compare(b.m_loopNanos, a.m_loopNanos));
+    return count;
+  }
+
+  private static void publish() {
+    int count = 0;
+    for (int i = 0; i < s_count; i++) {
+      Section section = s_sections[i];
+      section.m_p99Millis = section.percentileMillis(0.99);
+      section.m_p50Signal.set(section.percentileMillis(0.5));
+      section.m_p99Signal.set(section.m_p99Millis);
+      section.m_maxSignal.set(section.m_maxNanos * 1e-6);
+      if (section != s_loop && section.m_samples > 0) {
+        s_sorted[count++] = section;
+      }
+    }
+
+    Arrays.sort(s_sorted, 0, count, (a, b) -> Double.compare(b.m_p99Millis, a.m_p99Millis));
+    String[] top = new String[Math.min(count, kTopOffenders)];
+    for (int i = 0; i < top.length; i++) {
+      top[i] = String.format("%s p99 %.2f ms", s_sorted[i].m_name, s_sorted[i].m_p99Millis);
+    }
+    s_topPublisher.set(top);
+  }
+
+  private static StringBuilder appendMillis(StringBuilder builder, long nanos) {
+    // Two decimal places without going through String.format
+    long hundredths = (nanos + 5_000) / 10_000;
+    builder.append(hundredths / 100).append('.');
+    long fraction = hundredths % 100;
+    return builder.append(fraction < 10 ? "0" : "").append(fraction);
+  }
+
+  static int bucketOf(long nanos) {
+    long micros = nanos / 1000;
+    if (micros < kSubBuckets) {
+      return (int) micros;
+    }
+    int octave = 63 - Long.numberOfLeadingZeros(micros);
+    int subBucket = (int) (micros >>> (octave - kSubBucketBits)) & (kSubBuckets - 1);
+    return Math.min((octave - kSubBucketBits + 1) * kSubBuckets + subBucket, kBuckets - 1);
+  }
+
+  static long bucketUpperBoundMicros(int bucket) {
+    if (bucket < kSubBuckets) {
+      return bucket + 1;
+    }
+    int octave = bucket / kSubBuckets + kSubBucketBits - 1;
+    int subBucket = bucket % kSubBuckets;
+    long width = 1L << (octave - kSubBucketBits);
+    return (kSubBuckets + subBucket) * width + width;
+  }
+}
@@ -0,0 +1,138 @@
+package frc.utils;
+
+import edu.wpi.first.wpilibj.RobotController;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides whether a motor controller output needs to be sent again. A write is skipped when the
+ * control mode is unchanged and the value moved less than a per-device epsilon since the last
+ * write, unless the keep-alive interval has passed. Counts of sent and skipped writes are kept per
+ * device so the savings can be watched on the dashboard.
+ *
+ * <p>Call {@link #invalidate()} whenever the device is reconfigured, so the next output is sent
+ * even if it has not changed.
+ *
+ * <p>Typical use wraps each output call:
+ *
+ * <pre>
+ * if (m_coalescer.shouldWrite(speed, ControlType.kVelocity)) {
+ *   m_controller.setReference(speed, ControlType.kVelocity);
+ * }
+ * </pre>
+ */
+public class OutputCoalescer {
+  private static final List<OutputCoalescer> s_coalescers = new ArrayList<>();
+  private static final long kPublishPeriodNanos = 1_000_000_000L;
+  private static long s_lastPublishNanos = 0;
+  private static final Telemetry.DoubleSignal s_canUtilizationSignal =
+      Telemetry.addDouble("CAN Utilization");
+
+  private final Telemetry.DoubleSignal m_skippedSignal;
+  private final double m_epsilon;
+  private final long m_keepAliveNanos;
+
+  private Enum<?> m_lastMode = null;
+  private double m_lastValue = Double.NaN;
+  private long m_lastWriteNanos = 0;
+  private long m_sentCount = 0;
+  private long m_skippedCount = 0;
+
+  /**
+   * Constructs an OutputCoalescer for a device that sends a CAN frame on every write, and registers
+   * it for {@link #publishStatistics()}.
+   *
+   * @param name The device name shown on the dashboard.
+   * @param epsilon The smallest change in value that is sent before the keep-alive interval.
+   * @param keepAliveSeconds The longest time an unchanged output goes without being resent.
+   */
+  public OutputCoalescer(String name, double epsilon, double keepAliveSeconds) {
+    this(name, epsilon, keepAliveSeconds, true);
+  }
+
+  /**
+   * Constructs an OutputCoalescer and registers it for {@link #publishStatistics()}.
+   *
+   * @param name The device name shown on the dashboard.
+   * @param epsilon The smallest change in value that is sent before the keep-alive interval.
+   * @param keepAliveSeconds The longest time an unchanged output goes without being resent.
+   * @param sendsFrameOnWrite Whether each write sends a CAN frame. Phoenix 5 resends a Talon's
+   *     control frame on its own schedule, so a skipped Talon write saves a call into the driver
+   *     rather than a frame; those are published as "Writes Skipped" instead of "CAN Frames Saved".
+   */
+  public OutputCoalescer(
+      String name, double epsilon, double keepAliveSeconds, boolean sendsFrameOnWrite) {
+    m_skippedSignal = Telemetry.addDouble(
+        (sendsFrameOnWrite ? "CAN Frames Saved/" : "Writes Skipped/") + name);
+    m_epsilon = epsilon;
+    m_keepAliveNanos = (long) (keepAliveSeconds * 1e9);
+    synchronized (s_coalescers) {
+      s_coalescers.add(this);
+    }
+  }
+
+  /**
+   * Returns whether an output should be written, and if so records it as the last written output.
+   *
+   * @param value The output value.
+   * @param mode The control mode the value is sent in.
+   * @return true if the caller should send the output to the device.
+   */
+  public boolean shouldWrite(double value, Enum<?> mode) {
+    long now = System.nanoTime();
+    if (mode == m_lastMode
+        && Math.abs(value - m_lastValue) < m_epsilon
+        && now - m_lastWriteNanos < m_keepAliveNanos) {
+      m_skippedCount++;
+      return false;
+    }
+
+    m_lastMode = mode;
+    m_lastValue = value;
+    m_lastWriteNanos = now;
+    m_sentCount++;
+    return true;
+  }
+
+  /** Forces the next output to be written, e.g. after the device was reconfigured. */
+  public void invalidate() {
+    m_lastMode = null;
+  }
+
+  /**
+   * Returns the number of outputs that were sent.
+   *
+   * @return The number of writes sent to the device.
+   */
+  public long getSentCount() {
+    return m_sentCount;
+  }
+
+  /**
+   * Returns the number of outputs that were skipped.
+   *
+   * @return The number of writes skipped.
+   */
+  public long getSkippedCount() {
+    return m_skippedCount;
+  }
+
+  /**
+   * Publishes the number of skipped writes for every device through {@link Telemetry}, along with
+   * the overall CAN bus utilization. Safe to call every loop; it only updates once per second.
+   */
+  public static void publishStatistics() {
+    long now = System.nanoTime();
+    if (now - s_lastPublishNanos < kPublishPeriodNanos) {
+      return;
+    }
+    s_lastPublishNanos = now;
+
+    s_canUtilizationSignal.set(RobotController.getCANStatus().percentBusUtilization);
+    synchronized (s_coalescers) {
+      for (OutputCoalescer coalescer : s_coalescers) {
+        coalescer.m_skippedSignal.set(coalescer.m_skippedCount);
+      }
+    }
+  }
+}
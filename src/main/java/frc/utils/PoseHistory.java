@@ -0,0 +1,126 @@
+package frc.utils;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+
+/**
+ * A fixed-capacity history of robot poses indexed by timestamp, built from one
+ * {@link InterpolatingTimeSeries} per coordinate. Recording a pose never allocates and the oldest
+ * pose is evicted in O(1) once the history is full. Lookups interpolate linearly between the two
+ * surrounding poses. Headings are stored unwrapped, so interpolating them takes the shortest path
+ * between the two recorded headings.
+ *
+ * <p>Timestamps must be recorded in increasing order. Each coordinate is individually safe to read
+ * while another thread writes, but a pose is only consistent when read from the thread that records
+ * it, so this class is meant to be written and read from the main robot thread.
+ *
+ * @see InterpolatingTreeMap
+ */
+public class PoseHistory {
+  /** Index of the x coordinate in the array filled by {@link #getPoseAt(double, double[])}. */
+  public static final int kX = 0;
+  /** Index of the y coordinate in the array filled by {@link #getPoseAt(double, double[])}. */
+  public static final int kY = 1;
+  /** Index of the heading in the array filled by {@link #getPoseAt(double, double[])}. */
+  public static final int kTheta = 2;
+
+  private final InterpolatingTimeSeries m_x;
+  private final InterpolatingTimeSeries m_y;
+  private final InterpolatingTimeSeries m_theta;
+  private final double[] m_lookup = new double[3];
+
+  // The latest recorded heading, unwrapped
+  private double m_lastTheta = Double.NaN;
+
+  /**
+   * Constructs a PoseHistory.
+   *
+   * @param capacity The maximum number of poses to keep.
+   */
+  public PoseHistory(int capacity) {
+    m_x = new InterpolatingTimeSeries(capacity);
+    m_y = new InterpolatingTimeSeries(capacity);
+    m_theta = new InterpolatingTimeSeries(capacity);
+  }
+
+  /**
+   * Records a pose, evicting the oldest pose if the history is full. A timestamp that is not newer
+   * than the latest recorded one replaces the latest pose instead.
+   *
+   * @param timestampSeconds The time of the pose.
+   * @param xMeters The x coordinate of the pose.
+   * @param yMeters The y coordinate of the pose.
+   * @param thetaRadians The heading of the pose.
+   */
+  public void record(double timestampSeconds, double xMeters, double yMeters, double thetaRadians) {
+    // Continue from the previous heading, so no two neighbouring headings are more than pi apart
+    m_lastTheta = Double.isNaN(m_lastTheta)
+        ? thetaRadians
+        : m_lastTheta + MathUtil.angleModulus(thetaRadians - m_lastTheta);
+    m_x.add(timestampSeconds, xMeters);
+    m_y.add(timestampSeconds, yMeters);
+    m_theta.add(timestampSeconds, m_lastTheta);
+  }
+
+  /**
+   * Records a pose, evicting the oldest pose if the history is full.
+   *
+   * @param timestampSeconds The time of the pose.
+   * @param pose The pose.
+   */
+  public void record(double timestampSeconds, Pose2d pose) {
+    record(timestampSeconds, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+  }
+
+  /** Removes every recorded pose. */
+  public void clear() {
+    m_x.clear();
+    m_y.clear();
+    m_theta.clear();
+    m_lastTheta = Double.NaN;
+  }
+
+  /**
+   * Returns the number of recorded poses.
+   *
+   * @return The number of poses in the history.
+   */
+  public int size() {
+    return m_theta.size();
+  }
+
+  /**
+   * Interpolates the pose at a timestamp into a caller-owned array without allocating. Timestamps
+   * outside the recorded range return the nearest recorded pose.
+   *
+   * @param timestampSeconds The time to look up.
+   * @param pose The array to fill with x, y and heading, indexed by {@link #kX}, {@link #kY} and
+   *     {@link #kTheta}.
+   * @return false if the history is empty and the array was left untouched.
+   */
+  public boolean getPoseAt(double timestampSeconds, double[] pose) {
+    double theta = m_theta.getInterpolated(timestampSeconds);
+    if (Double.isNaN(theta)) {
+      return false;
+    }
+    pose[kX] = m_x.getInterpolated(timestampSeconds);
+    pose[kY] = m_y.getInterpolated(timestampSeconds);
+    pose[kTheta] = MathUtil.angleModulus(theta);
+    return true;
+  }
+
+  /**
+   * Interpolates the pose at a timestamp. Timestamps outside the recorded range return the nearest
+   * recorded pose.
+   *
+   * @param timestampSeconds The time to look up.
+   * @return The pose at that time, or null if the history is empty.
+   */
+  public Pose2d getPoseAt(double timestampSeconds) {
+    if (!getPoseAt(timestampSeconds, m_lookup)) {
+      return null;
+    }
+    return new Pose2d(m_lookup[kX], m_lookup[kY], new Rotation2d(m_lookup[kTheta]));
+  }
+}
@@ -0,0 +1,294 @@
+package frc.utils;
+
+import edu.wpi.first.util.WPIUtilJNI;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import java.io.File;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * Records robot signals to binary WPILib DataLog files for post-match analysis, without blocking
+ * the control thread on disk.
+ *
+ * <p>Each signal is a {@link Channel} of a fixed number of doubles, registered once at startup.
+ * The control thread fills a channel with {@link Channel#set(int, double)} and enqueues it with
+ * {@link Channel#append()}: one copy into the channel's preallocated {@link DoubleRingBuffer},
+ * with no locks and no allocation. A background thread wakes up periodically, drains every
+ * channel into a {@link DoubleArrayLogEntry}, and lets the DataLog batch the writes to disk.
+ *
+ * <p>Memory is bounded by the ring buffers; records that do not fit before the writer next drains
+ * them are dropped and counted. Each file is closed and a new one started once it reaches a size
+ * limit. The oldest signal files in the log directory, from this run or earlier ones, are deleted
+ * beyond a file count limit or when free space runs low.
+ */
+public final class SignalLogger {
+  /** Most channels that can be registered. */
+  public static final int kMaxChannels = 32;
+
+  // Records each channel holds between drains; several loops' worth at the fastest channel's rate
+  private static final int kRecordsPerChannel = 64;
+
+  // Rough size of a DataLog record header: type, entry id, payload size and timestamp
+  private static final long kRecordHeaderBytes = 12;
+
+  private static final String kFilePrefix = "signals_";
+  private static final String kFileSuffix = ".wpilog";
+
+  private static final Channel[] s_channels = new Channel[kMaxChannels];
+  private static volatile int s_count = 0;
+
+  private static boolean s_started = false;
+  private static long s_cycleTimestampMicros = 0;
+  private static final Telemetry.DoubleSignal s_droppedSignal =
+      Telemetry.addDouble("Log/Dropped records");
+
+  // Owned by the writer thread
+  private static String s_directory;
+  private static String s_session;
+  private static long s_maxFileBytes;
+  private static int s_maxFiles;
+  private static long s_minFreeBytes;
+  private static DataLog s_log;
+  private static IntegerLogEntry s_droppedEntry;
+  private static int s_generation = 0;
+  private static int s_fileIndex = 0;
+  private static long s_fileBytes = 0;
+  private static long s_lastDropped = 0;
+  private static boolean s_failed = false;
+
+  /** A group of values logged together as one DataLog double array entry. */
+  public static final class Channel {
+    private final String m_name;
+    private final int m_width;
+    private final DoubleRingBuffer m_buffer;
+
+    // Control thread: the record being filled, with the timestamp first
+    private final double[] m_record;
+
+    // Writer thread
+    private final double[] m_writerRecord;
+    private final double[] m_values;
+    private DoubleArrayLogEntry m_entry;
+    private int m_entryGeneration = -1;
+
+    private Channel(String name, int width, int capacity) {
+      m_name = name;
+      m_width = width;
+      m_buffer = new DoubleRingBuffer(capacity, width + 1);
+      m_record = new double[width + 1];
+      m_writerRecord = new double[width + 1];
+      m_values = new double[width];
+    }
+
+    /**
+     * Sets one value of the next record. Must be called from the control thread.
+     *
+     * @param index The index of the value, less than the channel width.
+     * @param value The value.
+     */
+    public void set(int index, double value) {
+      m_record[index + 1] = value;
+    }
+
+    /**
+     * Sets every value of the next record. Must be called from the control thread.
+     *
+     * @param values The values; the first {@code width} are copied.
+     * @param offset The index of the first value to copy.
+     */
+    public void setAll(double[] values, int offset) {
+      System.arraycopy(values, offset, m_record, 1, m_width);
+    }
+
+    /** Enqueues the record, stamped with the start of the current loop. */
+    public void append() {
+      appendAt(s_cycleTimestampMicros);
+    }
+
+    /**
+     * Enqueues the record with its own timestamp, for samples not taken at the start of the loop.
+     *
+     * @param timestampSeconds The time the values were measured, on the FPGA clock.
+     */
+    public void append(double timestampSeconds) {
+      appendAt((long) (timestampSeconds * 1e6));
+    }
+
+    private void appendAt(long timestampMicros) {
+      if (!s_started) {
+        return;
+      }
+      m_record[0] = timestampMicros;
+      m_buffer.offer(m_record);
+    }
+  }
+
+  private SignalLogger() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * Registers a channel.
+   *
+   * @param name The DataLog entry name.
+   * @param width The number of values in each record.
+   * @return The channel to log to.
+   */
+  public static synchronized Channel addChannel(String name, int width) {
+    int index = s_count;
+    if (index >= kMaxChannels) {
+      throw new IllegalStateException("More than " + kMaxChannels + " log channels registered");
+    }
+    s_channels[index] = new Channel(name, width, kRecordsPerChannel);
+    s_count = index + 1;
+    return s_channels[index];
+  }
+
+  /**
+   * Starts the writer thread. Channels registered before and after this call are both recorded.
+   *
+   * @param flushPeriodSeconds Time between drains of the ring buffers.
+   * @param maxFileBytes Size after which a new file is started.
+   * @param maxFiles Most signal files kept on disk, counting those of earlier runs.
+   * @param minFreeBytes Free space below which the oldest signal files are deleted.
+   */
+  public static synchronized void start(
+      double flushPeriodSeconds, long maxFileBytes, int maxFiles, long minFreeBytes) {
+    if (s_started) {
+      return;
+    }
+    // Write next to the DataLogManager log, on the USB stick when there is one
+    DataLogManager.getLog();
+    s_directory = DataLogManager.getLogDir();
+    s_session = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+    s_maxFileBytes = maxFileBytes;
+    s_maxFiles = maxFiles;
+    s_minFreeBytes = minFreeBytes;
+
+    long periodMillis = Math.max(1, (long) (flushPeriodSeconds * 1000));
+    Thread writer = new Thread(() -> {
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          try {
+            drain();
+            s_failed = false;
+          } catch (RuntimeException e) {
+            // A full disk or a bad file must not stop logging for the rest of the match; report
+            // the first failure and retry on the next drain
+            if (!s_failed) {
+              s_failed = true;
+              DriverStation.reportError("SignalLogger: " + e, e.getStackTrace());
+            }
+          }
+          Thread.sleep(periodMillis);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }, "SignalLogger");
+    writer.setDaemon(true);
+    writer.setPriority(Thread.MIN_PRIORITY);
+    s_started = true;
+    writer.start();
+  }
+
+  /**
+   * Stamps the records appended this loop and publishes the drop count. Must be called from the
+   * control thread at the start of each loop.
+   */
+  public static void beginCycle() {
+    if (!s_started) {
+      return;
+    }
+    s_cycleTimestampMicros = WPIUtilJNI.now();
+    s_droppedSignal.set(getDroppedCount());
+  }
+
+  private static long getDroppedCount() {
+    long dropped = 0;
+    int count = s_count;
+    for (int i = 0; i < count; i++) {
+      dropped += s_channels[i].m_buffer.getDroppedCount();
+    }
+    return dropped;
+  }
+
+  /** Writes every waiting record. Runs on the writer thread. */
+  private static void drain() {
+    if (s_log == null || s_fileBytes >= s_maxFileBytes) {
+      rotate();
+    }
+
+    int count = s_count;
+    for (int i = 0; i < count; i++) {
+      Channel channel = s_channels[i];
+      if (channel.m_entryGeneration != s_generation) {
+        channel.m_entry = new DoubleArrayLogEntry(s_log, channel.m_name);
+        channel.m_entryGeneration = s_generation;
+      }
+      long recordBytes = kRecordHeaderBytes + 8L * channel.m_width;
+      while (channel.m_buffer.poll(channel.m_writerRecord)) {
+        System.arraycopy(channel.m_writerRecord, 1, channel.m_values, 0, channel.m_width);
+        channel.m_entry.append(channel.m_values, (long) channel.m_writerRecord[0]);
+        s_fileBytes += recordBytes;
+      }
+    }
+
+    long dropped = getDroppedCount();
+    if (dropped != s_lastDropped) {
+      s_lastDropped = dropped;
+      s_droppedEntry.append(dropped);
+      s_fileBytes += kRecordHeaderBytes + 8;
+    }
+  }
+
+  /** Closes the current file, if any, and starts the next one. */
+  private static void rotate() {
+    if (s_log != null) {
+      s_log.close();
+      s_log = null;
+    }
+    deleteOldFiles();
+    String fileName =
+        String.format("%s%s_%03d%s", kFilePrefix, s_session, s_fileIndex++, kFileSuffix);
+    s_log = new DataLog(s_directory, fileName);
+
+    s_generation++;
+    s_fileBytes = 0;
+    s_droppedEntry = new IntegerLogEntry(s_log, "SignalLogger/Dropped");
+    s_droppedEntry.append(s_lastDropped);
+  }
+
+  /**
+   * Deletes the oldest signal files in the log directory, including those of earlier runs, until
+   * there is room for one more file under the count limit and free space is above the minimum.
+   */
+  private static void deleteOldFiles() {
+    File directory = new File(s_directory);
+    File[] files = directory.listFiles(
+        (dir, name) -> name.startsWith(kFilePrefix) && name.endsWith(kFileSuffix));
+    if (files == null) {
+      return;
+    }
+    // The roboRIO clock may not be set before the driver station connects, so the names are not
+    // reliably in order; the modification time is
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified).thenComparing(File::getName));
+    int remaining = files.length;
+    for (File oldest : files) {
+      if (remaining < s_maxFiles && directory.getUsableSpace() >= s_minFreeBytes) {
+        break;
+      }
+      if (oldest.delete()) {
+        remaining--;
+      } else {
+        DataLogManager.log("SignalLogger: could not delete " + oldest);
+      }
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package frc.utils;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.BaseTalon;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+import com.revrobotics.REVLibError;
+import edu.wpi.first.wpilibj.DriverStation;
+import java.util.Map;
+
+/** Utility class for applying status frame period profiles to motor controllers. */
+public class StatusFrameUtil {
+  /** Timeout for each CTRE configuration call, in milliseconds. */
+  private static final int kTimeoutMs = 50;
+
+  /**
+   * Sets the period of each status frame in a profile on a SPARK MAX. Frames not in the profile
+   * keep their current period. Status frame periods are not saved by burnFlash(), so the profile
+   * must be applied on every boot.
+   *
+   * @param sparkMax The SPARK MAX to configure.
+   * @param profile The period in milliseconds for each frame.
+   */
+  public static void apply(CANSparkMax sparkMax, Map<PeriodicFrame, Integer> profile) {
+    for (Map.Entry<PeriodicFrame, Integer> frame : profile.entrySet()) {
+      REVLibError error = sparkMax.setPeriodicFramePeriod(frame.getKey(), frame.getValue());
+      if (error != REVLibError.kOk) {
+        DriverStation.reportWarning(
+            "SPARK MAX " + sparkMax.getDeviceId() + ": failed to set " + frame.getKey() + " period: "
+                + error, false);
+      }
+    }
+  }
+
+  /**
+   * Sets the period of each status frame in a profile on a Talon SRX or Talon FX. Frames not in
+   * the profile keep their current period.
+   *
+   * @param talon The Talon to configure.
+   * @param profile The period in milliseconds for each frame.
+   */
+  public static void apply(BaseTalon talon, Map<StatusFrameEnhanced, Integer> profile) {
+    for (Map.Entry<StatusFrameEnhanced, Integer> frame : profile.entrySet()) {
+      ErrorCode error = talon.setStatusFramePeriod(frame.getKey(), frame.getValue(), kTimeoutMs);
+      if (error != ErrorCode.OK) {
+        DriverStation.reportWarning(
+            "Talon " + talon.getDeviceID() + ": failed to set " + frame.getKey() + " period: "
+                + error, false);
+      }
+    }
+  }
+}
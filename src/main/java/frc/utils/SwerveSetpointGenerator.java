@@ -0,0 +1,193 @@
+package frc.utils;
+
+/**
+ * Limits a stream of chassis speed requests to what the swerve drive can physically follow. Each
+ * call moves the previous setpoint towards the requested speeds by the largest fraction that keeps
+ * every module's velocity change within an acceleration limit and every module's heading change
+ * within its steering rate, so the robot changes direction as fast as the modules allow without
+ * scrubbing or tipping.
+ *
+ * <p>Module velocities are linear in chassis speeds, so the acceleration limit is solved in closed
+ * form; the steering limit is found by bisection. Nothing is allocated per call.
+ *
+ * <p>Based on the approach of Team 254's SwerveSetpointGenerator
+ * (https://github.com/Team254/FRC-2022-Public/tree/main/src/main/java/com/team254/lib/swerve)
+ */
+public class SwerveSetpointGenerator {
+  private static final int kNumModules = FourModuleSwerveKinematics.kNumModules;
+  private static final int kMaxBisectionIterations = 10;
+  private static final double kEpsilon = 1e-6;
+
+  private final FourModuleSwerveKinematics m_kinematics;
+  private final double[] m_moduleX;
+  private final double[] m_moduleY;
+  private final double m_maxModuleSpeed;
+  private final double m_maxModuleAcceleration;
+  private final double m_maxSteeringVelocity;
+
+  // Previous setpoint
+  private double m_vx = 0;
+  private double m_vy = 0;
+  private double m_omega = 0;
+  private final double[] m_moduleSpeeds = new double[kNumModules];
+  private final double[] m_moduleAngles = new double[kNumModules];
+
+  // Scratch space for the desired module states
+  private final double[] m_desiredSpeeds = new double[kNumModules];
+  private final double[] m_desiredAngles = new double[kNumModules];
+
+  /**
+   * Constructs a SwerveSetpointGenerator.
+   *
+   * @param kinematics The kinematics of the drivetrain.
+   * @param moduleX The x position of each module, in the same order as the kinematics.
+   * @param moduleY The y position of each module, in the same order as the kinematics.
+   * @param maxModuleSpeed The fastest any module can drive, in meters per second.
+   * @param maxModuleAcceleration The largest change in any module's velocity vector per second,
+   *     in meters per second squared.
+   * @param maxSteeringVelocity The fastest any module can steer, in radians per second.
+   */
+  public SwerveSetpointGenerator(
+      FourModuleSwerveKinematics kinematics,
+      double[] moduleX,
+      double[] moduleY,
+      double maxModuleSpeed,
+      double maxModuleAcceleration,
+      double maxSteeringVelocity) {
+    m_kinematics = kinematics;
+    m_moduleX = moduleX.clone();
+    m_moduleY = moduleY.clone();
+    m_maxModuleSpeed = maxModuleSpeed;
+    m_maxModuleAcceleration = maxModuleAcceleration;
+    m_maxSteeringVelocity = maxSteeringVelocity;
+  }
+
+  /**
+   * Resets the previous setpoint, for example after the robot was driven without this generator.
+   *
+   * @param vxMetersPerSecond Forward speed of the robot.
+   * @param vyMetersPerSecond Sideways speed of the robot.
+   * @param omegaRadiansPerSecond Angular rate of the robot.
+   * @param moduleAngles The current module angles, in radians.
+   */
+  public void reset(
+      double vxMetersPerSecond,
+      double vyMetersPerSecond,
+      double omegaRadiansPerSecond,
+      double[] moduleAngles) {
+    m_vx = vxMetersPerSecond;
+    m_vy = vyMetersPerSecond;
+    m_omega = omegaRadiansPerSecond;
+    System.arraycopy(moduleAngles, 0, m_moduleAngles, 0, kNumModules);
+    m_kinematics.toModuleStates(m_vx, m_vy, m_omega, m_moduleSpeeds, m_moduleAngles);
+  }
+
+  /**
+   * Moves the setpoint towards the requested robot-relative chassis speeds.
+   *
+   * @param vxMetersPerSecond Requested forward speed of the robot.
+   * @param vyMetersPerSecond Requested sideways speed of the robot.
+   * @param omegaRadiansPerSecond Requested angular rate of the robot.
+   * @param dtSeconds Time since the previous setpoint.
+   * @param speeds Filled with the new speed of each module.
+   * @param angles Filled with the new angle of each module, in radians.
+   */
+  public void generate(
+      double vxMetersPerSecond,
+      double vyMetersPerSecond,
+      double omegaRadiansPerSecond,
+      double dtSeconds,
+      double[] speeds,
+      double[] angles) {
+    // Scale the request down so no module is asked to exceed its top speed
+    System.arraycopy(m_moduleAngles, 0, m_desiredAngles, 0, kNumModules);
+    m_kinematics.toModuleStates(
+        vxMetersPerSecond, vyMetersPerSecond, omegaRadiansPerSecond, m_desiredSpeeds, m_desiredAngles);
+    double fastest = 0;
+    for (int i = 0; i < kNumModules; i++) {
+      fastest = Math.max(fastest, m_desiredSpeeds[i]);
+    }
+    if (fastest > m_maxModuleSpeed) {
+      double scale = m_maxModuleSpeed / fastest;
+      vxMetersPerSecond *= scale;
+      vyMetersPerSecond *= scale;
+      omegaRadiansPerSecond *= scale;
+    }
+
+    double dvx = vxMetersPerSecond - m_vx;
+    double dvy = vyMetersPerSecond - m_vy;
+    double domega = omegaRadiansPerSecond - m_omega;
+
+    // Largest fraction of the way to the request that every module can follow
+    double fraction = 1.0;
+    double maxVelocityStep = m_maxModuleAcceleration * dtSeconds;
+    double maxSteeringStep = m_maxSteeringVelocity * dtSeconds;
+    for (int i = 0; i < kNumModules; i++) {
+      // Change in this module's velocity vector for the full step
+      double moduleDvx = dvx - domega * m_moduleY[i];
+      double moduleDvy = dvy + domega * m_moduleX[i];
+      double velocityStep = Math.sqrt(moduleDvx * moduleDvx + moduleDvy * moduleDvy);
+      if (velocityStep > maxVelocityStep) {
+        fraction = Math.min(fraction, maxVelocityStep / velocityStep);
+      }
+
+      // A stopped module does not scrub while it turns, so it is not steering limited
+      if (m_moduleSpeeds[i] > kEpsilon) {
+        fraction = findSteeringLimit(i, moduleDvx, moduleDvy, fraction, maxSteeringStep);
+      }
+    }
+
+    m_vx += dvx * fraction;
+    m_vy += dvy * fraction;
+    m_omega += domega * fraction;
+    m_kinematics.toModuleStates(m_vx, m_vy, m_omega, m_moduleSpeeds, m_moduleAngles);
+    System.arraycopy(m_moduleSpeeds, 0, speeds, 0, kNumModules);
+    System.arraycopy(m_moduleAngles, 0, angles, 0, kNumModules);
+  }
+
+  /**
+   * Finds the largest fraction, no more than a given bound, at which a module's heading change from
+   * its previous angle stays within the steering step. The module may reverse its wheel, so a
+   * heading change is never more than a quarter turn.
+   */
+  private double findSteeringLimit(
+      int module, double moduleDvx, double moduleDvy, double upperBound, double maxSteeringStep) {
+    double previousVx = m_moduleSpeeds[module] * Math.cos(m_moduleAngles[module]);
+    double previousVy = m_moduleSpeeds[module] * Math.sin(m_moduleAngles[module]);
+    if (steeringChange(module, previousVx, previousVy, moduleDvx, moduleDvy, upperBound)
+        <= maxSteeringStep) {
+      return upperBound;
+    }
+
+    double low = 0;
+    double high = upperBound;
+    for (int iteration = 0; iteration < kMaxBisectionIterations; iteration++) {
+      double mid = (low + high) / 2;
+      if (steeringChange(module, previousVx, previousVy, moduleDvx, moduleDvy, mid)
+          <= maxSteeringStep) {
+        low = mid;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private double steeringChange(
+      int module,
+      double previousVx,
+      double previousVy,
+      double moduleDvx,
+      double moduleDvy,
+      double fraction) {
+    double vx = previousVx + moduleDvx * fraction;
+    double vy = previousVy + moduleDvy * fraction;
+    if (vx * vx + vy * vy < kEpsilon * kEpsilon) {
+      // The module passes through zero speed here and can point anywhere
+      return 0;
+    }
+    double change = SwerveUtils.AngleDifference(
+        SwerveUtils.WrapAngle(Math.atan2(vy, vx)), SwerveUtils.WrapAngle(m_moduleAngles[module]));
+    return Math.min(change, Math.PI - change);
+  }
+}
@@ -0,0 +1,204 @@
+package frc.utils;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.Notifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes telemetry to NetworkTables off the control thread.
+ *
+ * <p>Each signal is registered once at startup, which resolves its typed NT publisher up front.
+ * Setting a signal on the control thread is then a single array store. {@link #commit()} hands the
+ * loop's values to a background thread through a lock-free triple buffer, and that thread publishes
+ * every signal whose value changed at the rate given to {@link #start(double)}. Slow signals can be
+ * decimated so they are only published every Nth flush.
+ *
+ * <p>Signals are published under the SmartDashboard table, so existing dashboard layouts keep
+ * working.
+ */
+public final class Telemetry {
+  /** Most signals that can be registered. */
+  public static final int kMaxSignals = 256;
+
+  private static final int kDirtyBit = 4;
+  private static final int kIndexMask = 3;
+
+  private static final NetworkTable s_table =
+      NetworkTableInstance.getDefault().getTable("SmartDashboard");
+
+  // Registration, written once per signal before its count is published
+  private static final DoublePublisher[] s_doublePublishers = new DoublePublisher[kMaxSignals];
+  private static final BooleanPublisher[] s_booleanPublishers = new BooleanPublisher[kMaxSignals];
+  private static final int[] s_decimation = new int[kMaxSignals];
+  private static volatile int s_count = 0;
+
+  // Written by the control thread
+  private static final double[] s_values = new double[kMaxSignals];
+
+  // Triple buffer. The control thread owns s_buffers[s_writeIndex], the publisher thread owns
+  // s_buffers[s_readIndex] and the third buffer is shared, with kDirtyBit set when it holds values
+  // the publisher has not seen yet.
+  private static final double[][] s_buffers = new double[3][kMaxSignals];
+  private static int s_writeIndex = 0;
+  private static final AtomicInteger s_shared = new AtomicInteger(1);
+  private static int s_readIndex = 2;
+
+  // Owned by the publisher thread
+  private static final int[] s_countdown = new int[kMaxSignals];
+  private static final long[] s_lastPublished = new long[kMaxSignals];
+  private static final boolean[] s_hasPublished = new boolean[kMaxSignals];
+
+  private static Notifier s_notifier;
+
+  /** A number published to NetworkTables. */
+  public static final class DoubleSignal {
+    private final int m_index;
+
+    private DoubleSignal(int index) {
+      m_index = index;
+    }
+
+    /**
+     * Sets the value to publish. Must be called from the control thread.
+     *
+     * @param value The new value.
+     */
+    public void set(double value) {
+      s_values[m_index] = value;
+    }
+  }
+
+  /** A boolean published to NetworkTables. */
+  public static final class BooleanSignal {
+    private final int m_index;
+
+    private BooleanSignal(int index) {
+      m_index = index;
+    }
+
+    /**
+     * Sets the value to publish. Must be called from the control thread.
+     *
+     * @param value The new value.
+     */
+    public void set(boolean value) {
+      s_values[m_index] = value ? 1 : 0;
+    }
+  }
+
+  private Telemetry() {
+    throw new UnsupportedOperationException("This is a utility class!");
+  }
+
+  /**
+   * Registers a number that is published on every flush it changed.
+   *
+   * @param key The SmartDashboard key.
+   * @return The signal to set.
+   */
+  public static DoubleSignal addDouble(String key) {
+    return addDouble(key, 1);
+  }
+
+  /**
+   * Registers a number.
+   *
+   * @param key The SmartDashboard key.
+   * @param decimation Publish the signal only on every Nth flush.
+   * @return The signal to set.
+   */
+  public static synchronized DoubleSignal addDouble(String key, int decimation) {
+    int index = reserve(decimation);
+    s_doublePublishers[index] = s_table.getDoubleTopic(key).publish();
+    s_count = index + 1;
+    return new DoubleSignal(index);
+  }
+
+  /**
+   * Registers a boolean that is published on every flush it changed.
+   *
+   * @param key The SmartDashboard key.
+   * @return The signal to set.
+   */
+  public static BooleanSignal addBoolean(String key) {
+    return addBoolean(key, 1);
+  }
+
+  /**
+   * Registers a boolean.
+   *
+   * @param key The SmartDashboard key.
+   * @param decimation Publish the signal only on every Nth flush.
+   * @return The signal to set.
+   */
+  public static synchronized BooleanSignal addBoolean(String key, int decimation) {
+    int index = reserve(decimation);
+    s_booleanPublishers[index] = s_table.getBooleanTopic(key).publish();
+    s_count = index + 1;
+    return new BooleanSignal(index);
+  }
+
+  private static int reserve(int decimation) {
+    int index = s_count;
+    if (index >= kMaxSignals) {
+      throw new IllegalStateException("More than " + kMaxSignals + " telemetry signals registered");
+    }
+    s_decimation[index] = Math.max(decimation, 1);
+    return index;
+  }
+
+  /**
+   * Starts the background publisher thread.
+   *
+   * @param periodSeconds Time between flushes.
+   */
+  public static synchronized void start(double periodSeconds) {
+    if (s_notifier == null) {
+      s_notifier = new Notifier(Telemetry::flush);
+      s_notifier.setName("Telemetry");
+      s_notifier.startPeriodic(periodSeconds);
+    }
+  }
+
+  /**
+   * Hands the values set this loop to the publisher thread. Must be called from the control
+   * thread once per loop, after every subsystem and command has run.
+   */
+  public static void commit() {
+    System.arraycopy(s_values, 0, s_buffers[s_writeIndex], 0, s_count);
+    s_writeIndex = s_shared.getAndSet(s_writeIndex | kDirtyBit) & kIndexMask;
+  }
+
+  /** Publishes the latest committed values that changed. Runs on the publisher thread. */
+  private static void flush() {
+    if ((s_shared.get() & kDirtyBit) == 0) {
+      return;
+    }
+    s_readIndex = s_shared.getAndSet(s_readIndex) & kIndexMask;
+    double[] values = s_buffers[s_readIndex];
+
+    int count = s_count;
+    for (int i = 0; i < count; i++) {
+      if (--s_countdown[i] > 0) {
+        continue;
+      }
+      s_countdown[i] = s_decimation[i];
+
+      long bits = Double.doubleToLongBits(values[i]);
+      if (s_hasPublished[i] && bits == s_lastPublished[i]) {
+        continue;
+      }
+      s_hasPublished[i] = true;
+      s_lastPublished[i] = bits;
+
+      if (s_doublePublishers[i] != null) {
+        s_doublePublishers[i].set(values[i]);
+      } else {
+        s_booleanPublishers[i].set(values[i] != 0);
+      }
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package frc.utils;
+
+import edu.wpi.first.networktables.DoubleEntry;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleConsumer;
+
+/**
+ * A number that can be tuned from the dashboard without polling it every loop.
+ *
+ * <p>The value is published under the SmartDashboard table with its default. A NetworkTables
+ * listener stores dashboard edits in an atomic holder and, only when the value actually changed,
+ * queues the number for its callbacks. The callbacks run on the control thread in
+ * {@link #applyChanges()}, so they may reconfigure devices the control loop is also writing to.
+ * Reading the value with {@link #get()} is a single atomic load.
+ *
+ * <p>When tuning is disabled nothing is published or listened to, and the number always holds its
+ * default.
+ */
+public class TunableNumber {
+  // Numbers changed since the last applyChanges(), each queued at most once
+  private static final Queue<TunableNumber> s_changed = new ConcurrentLinkedQueue<>();
+
+  private final double m_defaultValue;
+  private final AtomicLong m_bits;
+  private final AtomicBoolean m_queued = new AtomicBoolean(false);
+  private final List<DoubleConsumer> m_callbacks = new ArrayList<>();
+  private DoubleEntry m_entry;
+
+  /**
+   * Constructs a TunableNumber.
+   *
+   * @param key The SmartDashboard key.
+   * @param defaultValue The value until it is changed on the dashboard.
+   * @param enabled Whether the value can be tuned at all. Pass false for competition.
+   */
+  public TunableNumber(String key, double defaultValue, boolean enabled) {
+    m_defaultValue = defaultValue;
+    m_bits = new AtomicLong(Double.doubleToLongBits(defaultValue));
+    if (!enabled) {
+      return;
+    }
+
+    NetworkTableInstance inst = NetworkTableInstance.getDefault();
+    m_entry = inst.getTable("SmartDashboard").getDoubleTopic(key).getEntry(defaultValue);
+    m_entry.set(defaultValue);
+    inst.addListener(
+        m_entry,
+        EnumSet.of(NetworkTableEvent.Kind.kValueRemote),
+        event -> update(event.valueData.value.getDouble()));
+  }
+
+  /**
+   * Returns the current value.
+   *
+   * @return The latest value set on the dashboard, or the default.
+   */
+  public double get() {
+    return Double.longBitsToDouble(m_bits.get());
+  }
+
+  /**
+   * Returns the default value.
+   *
+   * @return The value this number started with.
+   */
+  public double getDefault() {
+    return m_defaultValue;
+  }
+
+  /**
+   * Registers a callback run with the new value whenever it changes. Callbacks run on the control
+   * thread, in {@link #applyChanges()}. Several edits between two calls run the callback once, with
+   * the latest value.
+   *
+   * @param callback The callback.
+   */
+  public void onChange(DoubleConsumer callback) {
+    synchronized (m_callbacks) {
+      m_callbacks.add(callback);
+    }
+  }
+
+  /**
+   * Runs the callbacks of every number changed on the dashboard since the last call. Must be called
+   * from the control thread once per loop, before subsystems and commands run.
+   */
+  public static void applyChanges() {
+    TunableNumber number;
+    while ((number = s_changed.poll()) != null) {
+      // Clear the flag first, so an edit made while the callbacks run is queued again
+      number.m_queued.set(false);
+      double value = number.get();
+      synchronized (number.m_callbacks) {
+        for (DoubleConsumer callback : number.m_callbacks) {
+          callback.accept(value);
+        }
+      }
+    }
+  }
+
+  /** Stores a dashboard edit. Runs on the NetworkTables listener thread. */
+  private void update(double value) {
+    long bits = Double.doubleToLongBits(value);
+    if (m_bits.getAndSet(bits) == bits) {
+      return;
+    }
+    if (m_queued.compareAndSet(false, true)) {
+      s_changed.add(this);
+    }
+  }
+}
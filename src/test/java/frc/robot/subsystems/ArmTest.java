@@ -0,0 +1,65 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import frc.robot.Constants.ArmConstants;
+import frc.utils.ArmTrajectoryPlanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ArmTest {
+  // Rotation and extension of every preset, START first
+  private static final double[][] kPresets = {
+    {ArmConstants.kStartRotations, ArmConstants.kSpoolStartExtension},
+    {ArmConstants.kIntakeRotations, ArmConstants.kSpoolIntakeExtension},
+    {ArmConstants.kLowRotations, ArmConstants.kSpoolLowExtension},
+    {ArmConstants.kHighRotations, ArmConstants.kSpoolHighExtension},
+    {ArmConstants.kExtraHighRotations, ArmConstants.kSpoolExtraHighExtension}
+  };
+
+  @BeforeEach
+  void requireMeasuredGeometry() {
+    // Against placeholder geometry these would only check the presets fit made-up numbers
+    assumeTrue(ArmConstants.kArmGeometryCalibrated, "arm geometry not measured yet");
+  }
+
+  @Test
+  void presetsAreInsideTheEnvelope() {
+    for (double[] preset : kPresets) {
+      assertTrue(
+          Arm.isInsideEnvelope(preset[0], preset[1]),
+          "preset at " + preset[0] + " rotations, " + preset[1] + " extension");
+    }
+  }
+
+  @Test
+  void envelopeRejectsTheFloor() {
+    // Pointing straight down at full extension reaches below the floor clearance
+    double down = ArmConstants.kArmHorizontalRotations
+        + (-Math.PI / 2) / ArmConstants.kArmRadiansPerRotation;
+    assertFalse(Arm.isInsideEnvelope(down, ArmConstants.kSpoolMotorForwardLimit));
+  }
+
+  @Test
+  void everyPresetCanReachEveryOther() {
+    ArmTrajectoryPlanner planner = new ArmTrajectoryPlanner(
+        new TrapezoidProfile.Constraints(
+            ArmConstants.kArmMaxVelocityRotationsPerSecond,
+            ArmConstants.kArmMaxAccelerationRotationsPerSecondSquared),
+        new TrapezoidProfile.Constraints(
+            ArmConstants.kSpoolCruiseVelocity, ArmConstants.kSpoolAcceleration),
+        Arm::isInsideEnvelope,
+        ArmConstants.kSpoolMotorReverseLimit,
+        ArmConstants.kArmPlannerCheckSamples);
+    for (double[] from : kPresets) {
+      for (double[] to : kPresets) {
+        assertTrue(
+            planner.plan(from[0], from[1], to[0], to[1]),
+            "move from " + from[0] + " to " + to[0] + " rotations");
+      }
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.Constants.DriveConstants;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the odometry and kinematics paths of {@link DriveSubsystem} allocate nothing once
+ * warmed up. The rest of periodic() is not covered: SwerveDrivePoseEstimator.updateWithTime() and
+ * the Pose2d math that carries the odometry pose forward allocate inside WPILib on every sample.
+ */
+class DriveSubsystemTest {
+  private static final int kWarmupIterations = 20_000;
+  private static final int kIterations = 1_000;
+
+  private static com.sun.management.ThreadMXBean s_threadBean;
+  private static DriveSubsystem s_drive;
+
+  @BeforeAll
+  static void setup() {
+    assertTrue(HAL.initialize(500, 0));
+    s_threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    s_threadBean.setThreadAllocatedMemoryEnabled(true);
+    s_drive = new DriveSubsystem();
+  }
+
+  /** Returns the bytes the calling thread allocates running the work, after a warmup. */
+  private static long allocatedBytes(Runnable work) {
+    for (int i = 0; i < kWarmupIterations; i++) {
+      work.run();
+    }
+    long threadId = Thread.currentThread().getId();
+    // Subtract whatever reading the counter costs
+    long overhead = s_threadBean.getThreadAllocatedBytes(threadId);
+    overhead = s_threadBean.getThreadAllocatedBytes(threadId) - overhead;
+
+    long start = s_threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < kIterations; i++) {
+      work.run();
+    }
+    return s_threadBean.getThreadAllocatedBytes(threadId) - start - overhead;
+  }
+
+  @Test
+  void modulePositionsFromSamplesDoNotAllocate() {
+    double[] sample = new double[OdometryThread.kSampleSize];
+    for (int i = 0; i < 4; i++) {
+      sample[OdometryThread.kDistanceIndex + i] = 1.5 + i;
+      sample[OdometryThread.kAngleIndex + i] = 0.25 * i;
+    }
+    assertEquals(0, allocatedBytes(() -> s_drive.updateModulePositions(sample)));
+  }
+
+  @Test
+  void modulePositionsFromModulesDoNotAllocate() {
+    // Reads every module through MAXSwerveModule.updatePosition()
+    assertEquals(0, allocatedBytes(() -> s_drive.updateModulePositions()));
+  }
+
+  @Test
+  void driveKinematicsDoNotAllocate() {
+    DriveSetpoints setpoints = new DriveSetpoints();
+    Rotation2d heading = Rotation2d.fromDegrees(30);
+    double speed = DriveConstants.kMaxSpeedMetersPerSecond;
+    assertEquals(
+        0, allocatedBytes(() -> setpoints.update(speed, -speed / 2, 1, heading, false, 0.02)));
+    assertEquals(
+        0, allocatedBytes(() -> setpoints.update(-speed, speed / 2, -1, heading, true, 0.02)));
+  }
+}
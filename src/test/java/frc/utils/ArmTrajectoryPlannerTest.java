@@ -0,0 +1,142 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import org.junit.jupiter.api.Test;
+
+class ArmTrajectoryPlannerTest {
+  private static final double kEpsilon = 1e-6;
+  private static final TrapezoidProfile.Constraints kConstraints =
+      new TrapezoidProfile.Constraints(1, 1);
+
+  private final double[] m_sample = new double[ArmTrajectoryPlanner.kSampleSize];
+
+  private static ArmTrajectoryPlanner planner(ArmTrajectoryPlanner.Envelope envelope) {
+    return new ArmTrajectoryPlanner(kConstraints, kConstraints, envelope, 0, 50);
+  }
+
+  @Test
+  void directMoveFinishesBothAxesTogether() {
+    ArmTrajectoryPlanner planner = planner((rotation, extension) -> true);
+    assertTrue(planner.plan(0, 0, 2, 0.5));
+    assertFalse(planner.isFallback());
+
+    // Rotation is the slower axis: 1 s to accelerate, 1 s at speed and 1 s to stop
+    assertEquals(3, planner.getTotalTime(), kEpsilon);
+    planner.sample(1.5, m_sample);
+    assertNotEquals(0, m_sample[ArmTrajectoryPlanner.kRotationVelocityIndex], kEpsilon);
+    assertNotEquals(0, m_sample[ArmTrajectoryPlanner.kExtensionVelocityIndex], kEpsilon);
+    planner.sample(planner.getTotalTime(), m_sample);
+    assertEquals(2, m_sample[ArmTrajectoryPlanner.kRotationIndex], kEpsilon);
+    assertEquals(0.5, m_sample[ArmTrajectoryPlanner.kExtensionIndex], kEpsilon);
+  }
+
+  @Test
+  void fallsBackToRetractRotateExtend() {
+    // Extended, the arm may not pass through the middle of its travel
+    ArmTrajectoryPlanner.Envelope envelope =
+        (rotation, extension) -> !(rotation > 0.4 && rotation < 0.6 && extension > 0.5);
+    ArmTrajectoryPlanner planner = planner(envelope);
+    assertTrue(planner.plan(0, 1, 1, 1));
+    assertTrue(planner.isFallback());
+
+    for (double t = 0; t <= planner.getTotalTime(); t += 0.01) {
+      planner.sample(t, m_sample);
+      assertTrue(
+          envelope.contains(
+              m_sample[ArmTrajectoryPlanner.kRotationIndex],
+              m_sample[ArmTrajectoryPlanner.kExtensionIndex]),
+          "left the envelope at " + t);
+    }
+    planner.sample(planner.getTotalTime(), m_sample);
+    assertEquals(1, m_sample[ArmTrajectoryPlanner.kRotationIndex], kEpsilon);
+    assertEquals(1, m_sample[ArmTrajectoryPlanner.kExtensionIndex], kEpsilon);
+  }
+
+  @Test
+  void refusesWhenNoPathIsSafe() {
+    // No extension gets the arm through the middle of its travel
+    ArmTrajectoryPlanner planner =
+        planner((rotation, extension) -> !(rotation > 0.4 && rotation < 0.6));
+    assertFalse(planner.plan(0, 1, 1, 1));
+    assertHoldsAt(planner, 0, 1);
+  }
+
+  @Test
+  void refusesGoalsOutsideTheEnvelope() {
+    ArmTrajectoryPlanner planner = planner((rotation, extension) -> rotation < 0.9);
+    assertFalse(planner.plan(0, 0.5, 1, 0.5));
+    assertHoldsAt(planner, 0, 0.5);
+  }
+
+  @Test
+  void replansAfterARefusal() {
+    ArmTrajectoryPlanner planner = planner((rotation, extension) -> rotation < 0.9);
+    assertFalse(planner.plan(0, 0, 1, 0));
+    assertTrue(planner.plan(0, 0, 0.5, 0));
+    planner.sample(planner.getTotalTime(), m_sample);
+    assertEquals(0.5, m_sample[ArmTrajectoryPlanner.kRotationIndex], kEpsilon);
+  }
+
+  @Test
+  void replanMidMoveKeepsTheVelocityContinuous() {
+    ArmTrajectoryPlanner planner = planner((rotation, extension) -> true);
+    planner.plan(0, 0, 2, 0.5);
+    planner.sample(1.5, m_sample);
+    double rotation = m_sample[ArmTrajectoryPlanner.kRotationIndex];
+    double rotationVelocity = m_sample[ArmTrajectoryPlanner.kRotationVelocityIndex];
+    double extension = m_sample[ArmTrajectoryPlanner.kExtensionIndex];
+    double extensionVelocity = m_sample[ArmTrajectoryPlanner.kExtensionVelocityIndex];
+
+    // Send the arm back while it is moving at full speed
+    assertTrue(planner.plan(rotation, rotationVelocity, extension, extensionVelocity, 0, 0));
+    double previousRotationVelocity = rotationVelocity;
+    double previousExtensionVelocity = extensionVelocity;
+    double dt = 0.02;
+    for (double t = dt; t <= planner.getTotalTime() + dt; t += dt) {
+      planner.sample(t, m_sample);
+      double newRotationVelocity = m_sample[ArmTrajectoryPlanner.kRotationVelocityIndex];
+      double newExtensionVelocity = m_sample[ArmTrajectoryPlanner.kExtensionVelocityIndex];
+      // No step in either velocity is larger than the acceleration limit allows
+      double maxStep = kConstraints.maxAcceleration * dt + kEpsilon;
+      assertTrue(
+          Math.abs(newRotationVelocity - previousRotationVelocity) <= maxStep,
+          "rotation velocity jumped at " + t);
+      assertTrue(
+          Math.abs(newExtensionVelocity - previousExtensionVelocity) <= maxStep,
+          "extension velocity jumped at " + t);
+      previousRotationVelocity = newRotationVelocity;
+      previousExtensionVelocity = newExtensionVelocity;
+    }
+    assertEquals(0, m_sample[ArmTrajectoryPlanner.kRotationIndex], kEpsilon);
+    assertEquals(0, m_sample[ArmTrajectoryPlanner.kExtensionIndex], kEpsilon);
+  }
+
+  @Test
+  void refusedReplanMidMoveComesToRest() {
+    ArmTrajectoryPlanner planner = planner((rotation, extension) -> rotation < 3);
+    // Moving at 1 unit/s, which takes 0.5 units to stop at 1 unit/s^2
+    assertFalse(planner.plan(1, 1, 0, 0, 4, 0));
+    planner.sample(0.02, m_sample);
+    assertEquals(0.98, m_sample[ArmTrajectoryPlanner.kRotationVelocityIndex], kEpsilon);
+    planner.sample(planner.getTotalTime(), m_sample);
+    assertEquals(1.5, m_sample[ArmTrajectoryPlanner.kRotationIndex], kEpsilon);
+    assertEquals(0, m_sample[ArmTrajectoryPlanner.kRotationVelocityIndex], kEpsilon);
+  }
+
+  private void assertHoldsAt(ArmTrajectoryPlanner planner, double rotation, double extension) {
+    assertFalse(planner.isFallback());
+    assertEquals(0, planner.getTotalTime(), kEpsilon);
+    for (double t : new double[] {0, 0.5, 5}) {
+      planner.sample(t, m_sample);
+      assertEquals(rotation, m_sample[ArmTrajectoryPlanner.kRotationIndex], kEpsilon);
+      assertEquals(extension, m_sample[ArmTrajectoryPlanner.kExtensionIndex], kEpsilon);
+      assertEquals(0, m_sample[ArmTrajectoryPlanner.kRotationVelocityIndex], kEpsilon);
+      assertEquals(0, m_sample[ArmTrajectoryPlanner.kExtensionVelocityIndex], kEpsilon);
+    }
+  }
+}
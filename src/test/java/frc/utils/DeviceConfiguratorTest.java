@@ -0,0 +1,39 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class DeviceConfiguratorTest {
+  private enum Mode {
+    kBrake,
+    kCoast
+  }
+
+  @Test
+  void matchesAtFloatPrecision() {
+    // A setting read back from the device has been rounded to a float
+    assertTrue(DeviceConfigurator.matches((float) 0.1, 0.1));
+    assertTrue(DeviceConfigurator.matches(0.04, 0.04));
+    assertFalse(DeviceConfigurator.matches(0.1, 0.2));
+    assertFalse(DeviceConfigurator.matches(1.0, 1.0001));
+  }
+
+  @Test
+  void hashIsStableAndOrderSensitive() {
+    assertEquals(DeviceConfigurator.hash(9, true), DeviceConfigurator.hash(9, true));
+    assertNotEquals(DeviceConfigurator.hash(9, true), DeviceConfigurator.hash(9, false));
+    assertNotEquals(DeviceConfigurator.hash(9, 10), DeviceConfigurator.hash(10, 9));
+    assertNotEquals(DeviceConfigurator.hash(9), DeviceConfigurator.hash(9, null));
+  }
+
+  @Test
+  void enumsHashByName() {
+    // Enum.hashCode() changes from run to run; the name does not
+    assertEquals(31 + "kBrake".hashCode(), DeviceConfigurator.hash(Mode.kBrake));
+    assertNotEquals(DeviceConfigurator.hash(Mode.kBrake), DeviceConfigurator.hash(Mode.kCoast));
+  }
+}
@@ -0,0 +1,79 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class DoubleRingBufferTest {
+  @Test
+  void pollsSamplesInOrder() {
+    DoubleRingBuffer buffer = new DoubleRingBuffer(4, 2);
+    assertTrue(buffer.offer(new double[] {1, 2}));
+    assertTrue(buffer.offer(new double[] {3, 4}));
+    assertEquals(2, buffer.size());
+
+    double[] sample = new double[2];
+    assertTrue(buffer.poll(sample));
+    assertArrayEquals(new double[] {1, 2}, sample);
+    assertTrue(buffer.poll(sample));
+    assertArrayEquals(new double[] {3, 4}, sample);
+    assertFalse(buffer.poll(sample));
+    assertEquals(0, buffer.size());
+  }
+
+  @Test
+  void wrapsAroundTheEndOfTheArray() {
+    DoubleRingBuffer buffer = new DoubleRingBuffer(3, 2);
+    double[] sample = new double[2];
+    // Several times round the buffer, one behind the writer
+    for (int i = 0; i < 10; i++) {
+      assertTrue(buffer.offer(new double[] {i, -i}));
+      if (i > 0) {
+        assertTrue(buffer.poll(sample));
+        assertArrayEquals(new double[] {i - 1, -(i - 1)}, sample);
+      }
+    }
+    assertEquals(1, buffer.size());
+    assertEquals(0, buffer.getDroppedCount());
+  }
+
+  @Test
+  void dropsAndCountsSamplesWhenFull() {
+    DoubleRingBuffer buffer = new DoubleRingBuffer(2, 1);
+    assertTrue(buffer.offer(new double[] {1}));
+    assertTrue(buffer.offer(new double[] {2}));
+    assertFalse(buffer.offer(new double[] {3}));
+    assertFalse(buffer.offer(new double[] {4}));
+    assertEquals(2, buffer.getDroppedCount());
+
+    // The samples already queued are kept, not overwritten
+    double[] sample = new double[1];
+    assertTrue(buffer.poll(sample));
+    assertEquals(1, sample[0]);
+    assertTrue(buffer.offer(new double[] {5}));
+    assertTrue(buffer.poll(sample));
+    assertEquals(2, sample[0]);
+    assertTrue(buffer.poll(sample));
+    assertEquals(5, sample[0]);
+  }
+
+  @Test
+  void clearDiscardsWaitingSamples() {
+    DoubleRingBuffer buffer = new DoubleRingBuffer(4, 1);
+    buffer.offer(new double[] {1});
+    buffer.offer(new double[] {2});
+    buffer.clear();
+    assertEquals(0, buffer.size());
+    assertFalse(buffer.poll(new double[1]));
+  }
+
+  @Test
+  void rejectsInvalidSizes() {
+    assertThrows(IllegalArgumentException.class, () -> new DoubleRingBuffer(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new DoubleRingBuffer(1, 0));
+  }
+}
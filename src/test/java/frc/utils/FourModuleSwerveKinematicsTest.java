@@ -0,0 +1,107 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class FourModuleSwerveKinematicsTest {
+  private static final double kEpsilon = 1e-9;
+  private static final double[] kModuleX = {0.3, 0.3, -0.3, -0.3};
+  private static final double[] kModuleY = {0.25, -0.25, 0.25, -0.25};
+
+  private final FourModuleSwerveKinematics m_kinematics =
+      new FourModuleSwerveKinematics(kModuleX, kModuleY);
+  private final SwerveDriveKinematics m_wpilibKinematics = new SwerveDriveKinematics(
+      new Translation2d(kModuleX[0], kModuleY[0]),
+      new Translation2d(kModuleX[1], kModuleY[1]),
+      new Translation2d(kModuleX[2], kModuleY[2]),
+      new Translation2d(kModuleX[3], kModuleY[3]));
+
+  @Test
+  void inverseKinematicsMatchesWpilib() {
+    Random random = new Random(42);
+    double[] speeds = new double[4];
+    double[] angles = new double[4];
+    for (int trial = 0; trial < 100; trial++) {
+      double vx = random.nextDouble() * 8 - 4;
+      double vy = random.nextDouble() * 8 - 4;
+      double omega = random.nextDouble() * 10 - 5;
+      m_kinematics.toModuleStates(vx, vy, omega, speeds, angles);
+      SwerveModuleState[] expected =
+          m_wpilibKinematics.toSwerveModuleStates(new ChassisSpeeds(vx, vy, omega));
+
+      for (int i = 0; i < 4; i++) {
+        assertEquals(expected[i].speedMetersPerSecond, speeds[i], kEpsilon);
+        // Compare directions, so angles a full turn apart still match
+        assertEquals(expected[i].angle.getCos(), Math.cos(angles[i]), kEpsilon);
+        assertEquals(expected[i].angle.getSin(), Math.sin(angles[i]), kEpsilon);
+      }
+    }
+  }
+
+  @Test
+  void forwardKinematicsMatchesWpilib() {
+    Random random = new Random(7);
+    double[] speeds = new double[4];
+    double[] angles = new double[4];
+    double[] chassisSpeeds = new double[3];
+    SwerveModuleState[] states = new SwerveModuleState[4];
+    for (int trial = 0; trial < 100; trial++) {
+      // Arbitrary module states, not necessarily consistent with any chassis motion
+      for (int i = 0; i < 4; i++) {
+        speeds[i] = random.nextDouble() * 8 - 4;
+        angles[i] = random.nextDouble() * 2 * Math.PI - Math.PI;
+        states[i] = new SwerveModuleState(speeds[i], new Rotation2d(angles[i]));
+      }
+      m_kinematics.toChassisSpeeds(speeds, angles, chassisSpeeds);
+      ChassisSpeeds expected = m_wpilibKinematics.toChassisSpeeds(states);
+
+      assertEquals(expected.vxMetersPerSecond, chassisSpeeds[0], 1e-6);
+      assertEquals(expected.vyMetersPerSecond, chassisSpeeds[1], 1e-6);
+      assertEquals(expected.omegaRadiansPerSecond, chassisSpeeds[2], 1e-6);
+    }
+  }
+
+  @Test
+  void stoppedModulesHoldTheirAngle() {
+    double[] speeds = new double[4];
+    double[] angles = {0.1, 0.2, 0.3, 0.4};
+    m_kinematics.toModuleStates(0, 0, 0, speeds, angles);
+    for (int i = 0; i < 4; i++) {
+      assertEquals(0, speeds[i], kEpsilon);
+      assertEquals(0.1 * (i + 1), angles[i], kEpsilon);
+    }
+  }
+
+  @Test
+  void desaturationKeepsTheRatiosBetweenModules() {
+    double[] speeds = {2, -6, 3, 1};
+    FourModuleSwerveKinematics.desaturateWheelSpeeds(speeds, 4);
+    assertEquals(4.0 / 3, speeds[0], kEpsilon);
+    assertEquals(-4, speeds[1], kEpsilon);
+    assertEquals(2, speeds[2], kEpsilon);
+    assertEquals(2.0 / 3, speeds[3], kEpsilon);
+
+    double[] slow = {1, -2, 0.5, 0};
+    FourModuleSwerveKinematics.desaturateWheelSpeeds(slow, 4);
+    assertEquals(-2, slow[1], kEpsilon);
+  }
+
+  @Test
+  void rejectsOffCenterModules() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new FourModuleSwerveKinematics(
+            new double[] {0.4, 0.3, -0.3, -0.3}, kModuleY));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new FourModuleSwerveKinematics(new double[3], new double[3]));
+  }
+}
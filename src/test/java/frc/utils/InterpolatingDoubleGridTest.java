@@ -0,0 +1,118 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InterpolatingDoubleGridTest {
+  private static final double kEpsilon = 1e-9;
+
+  @TempDir
+  Path m_directory;
+
+  private final InterpolatingDoubleGrid m_grid = new InterpolatingDoubleGrid(
+      new double[] {1.0, 2.0, 4.0},
+      new double[] {-20.0, 0.0, 20.0},
+      new double[] {
+        1400, 1450, 1400,
+        1650, 1700, 1650,
+        2000, 2100, 2000
+      });
+
+  @Test
+  void returnsTheGridPoints() {
+    assertEquals(1450, m_grid.getInterpolated(1.0, 0.0), kEpsilon);
+    assertEquals(1650, m_grid.getInterpolated(2.0, 20.0), kEpsilon);
+    assertEquals(2000, m_grid.getInterpolated(4.0, -20.0), kEpsilon);
+  }
+
+  @Test
+  void interpolatesBilinearly() {
+    // Middle of the cell between rows 2 and 4 and columns 0 and 20
+    double top = (1700 + 1650) / 2.0;
+    double bottom = (2100 + 2000) / 2.0;
+    assertEquals((top + bottom) / 2, m_grid.getInterpolated(3.0, 10.0), kEpsilon);
+    // Along one axis only
+    assertEquals(1525, m_grid.getInterpolated(1.5, -20.0), kEpsilon);
+  }
+
+  @Test
+  void clampsToTheEdges() {
+    assertEquals(1400, m_grid.getInterpolated(0.0, -90.0), kEpsilon);
+    assertEquals(2000, m_grid.getInterpolated(10.0, 90.0), kEpsilon);
+    assertEquals(2050, m_grid.getInterpolated(10.0, 10.0), kEpsilon);
+  }
+
+  @Test
+  void singleRowGridInterpolatesColumns() {
+    InterpolatingDoubleGrid grid = new InterpolatingDoubleGrid(
+        new double[] {1.0}, new double[] {0.0, 10.0}, new double[] {100, 200});
+    assertEquals(150, grid.getInterpolated(5.0, 5.0), kEpsilon);
+  }
+
+  @Test
+  void rejectsInvalidGrids() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new InterpolatingDoubleGrid(new double[] {1, 2}, new double[] {1}, new double[3]));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new InterpolatingDoubleGrid(new double[] {2, 1}, new double[] {1}, new double[2]));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new InterpolatingDoubleGrid(new double[0], new double[] {1}, new double[0]));
+  }
+
+  @Test
+  void loadsCsvSkippingCommentsAndBlankLines() throws IOException {
+    InterpolatingDoubleGrid grid = InterpolatingDoubleGrid.fromCsv(writeCsv(
+        "# Shooter RPM",
+        "distance\\angle, -20, 0, 20",
+        "",
+        "1.0, 1400, 1450, 1400",
+        "  2.0 ,1650,1700, 1650  "));
+    assertEquals(1450, grid.getInterpolated(1.0, 0.0), kEpsilon);
+    assertEquals(1675, grid.getInterpolated(2.0, 10.0), kEpsilon);
+  }
+
+  @Test
+  void rejectsMalformedCsv() throws IOException {
+    // Header only
+    assertThrows(
+        IOException.class,
+        () -> InterpolatingDoubleGrid.fromCsv(writeCsv("distance\\angle, 0, 20")));
+    // A row with a missing value
+    assertThrows(
+        IOException.class,
+        () -> InterpolatingDoubleGrid.fromCsv(writeCsv(
+            "distance\\angle, 0, 20",
+            "1.0, 1400")));
+    // A value that is not a number
+    assertThrows(
+        IOException.class,
+        () -> InterpolatingDoubleGrid.fromCsv(writeCsv(
+            "distance\\angle, 0, 20",
+            "1.0, 1400, fast")));
+    // Rows out of order
+    assertThrows(
+        IOException.class,
+        () -> InterpolatingDoubleGrid.fromCsv(writeCsv(
+            "distance\\angle, 0, 20",
+            "2.0, 1400, 1450",
+            "1.0, 1400, 1450")));
+    // No file at all
+    assertThrows(
+        IOException.class,
+        () -> InterpolatingDoubleGrid.fromCsv(m_directory.resolve("missing.csv")));
+  }
+
+  private Path writeCsv(String... lines) throws IOException {
+    return Files.write(Files.createTempFile(m_directory, "grid", ".csv"), List.of(lines));
+  }
+}
@@ -0,0 +1,76 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class InterpolatingDoubleTableTest {
+  private static final double kEpsilon = 1e-9;
+
+  @Test
+  void emptyTableReturnsNaN() {
+    assertTrue(Double.isNaN(new InterpolatingDoubleTable().getInterpolated(1.0)));
+  }
+
+  @Test
+  void interpolatesLinearlyAndClampsAtTheEnds() {
+    InterpolatingDoubleTable table = new InterpolatingDoubleTable();
+    // Inserted out of order
+    table.put(3.0, 30.0);
+    table.put(1.0, 10.0);
+    table.put(2.0, 40.0);
+
+    assertEquals(25.0, table.getInterpolated(1.5), kEpsilon);
+    assertEquals(35.0, table.getInterpolated(2.5), kEpsilon);
+    assertEquals(40.0, table.getInterpolated(2.0), kEpsilon);
+    assertEquals(10.0, table.getInterpolated(-5.0), kEpsilon);
+    assertEquals(30.0, table.getInterpolated(5.0), kEpsilon);
+  }
+
+  @Test
+  void putReplacesAnExistingKey() {
+    InterpolatingDoubleTable table = new InterpolatingDoubleTable();
+    table.put(1.0, 10.0);
+    table.put(2.0, 20.0);
+    table.put(1.0, 0.0);
+    assertEquals(2, table.size());
+    assertEquals(10.0, table.getInterpolated(1.5), kEpsilon);
+  }
+
+  @Test
+  void growsPastItsInitialCapacity() {
+    InterpolatingDoubleTable table = new InterpolatingDoubleTable();
+    for (int i = 20; i >= 0; i--) {
+      table.put(i, i * i);
+    }
+    assertEquals(21, table.size());
+    for (int i = 0; i < 20; i++) {
+      assertEquals(i * i, table.getInterpolated(i), kEpsilon);
+      assertEquals((i * i + (i + 1) * (i + 1)) / 2.0, table.getInterpolated(i + 0.5), kEpsilon);
+    }
+  }
+
+  @Test
+  void monotoneCubicPassesThroughThePointsWithoutOvershooting() {
+    InterpolatingDoubleTable table =
+        new InterpolatingDoubleTable(InterpolatingDoubleTable.Mode.MONOTONE_CUBIC);
+    // A step, where an ordinary cubic spline would overshoot
+    double[] keys = {0, 1, 2, 3, 4, 5};
+    double[] values = {0, 0, 0, 10, 10, 10};
+    for (int i = 0; i < keys.length; i++) {
+      table.put(keys[i], values[i]);
+    }
+
+    for (int i = 0; i < keys.length; i++) {
+      assertEquals(values[i], table.getInterpolated(keys[i]), kEpsilon);
+    }
+    double previous = table.getInterpolated(0);
+    for (double key = 0; key <= 5; key += 0.01) {
+      double value = table.getInterpolated(key);
+      assertTrue(value >= 0 && value <= 10, "overshoot at " + key);
+      assertTrue(value >= previous - kEpsilon, "not monotonic at " + key);
+      previous = value;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class InterpolatingTimeSeriesTest {
+  private static final double kEpsilon = 1e-9;
+
+  @Test
+  void emptySeriesReturnsNaN() {
+    InterpolatingTimeSeries series = new InterpolatingTimeSeries(4);
+    assertTrue(Double.isNaN(series.getInterpolated(1.0)));
+    assertEquals(0, series.size());
+  }
+
+  @Test
+  void interpolatesBetweenSamples() {
+    InterpolatingTimeSeries series = new InterpolatingTimeSeries(8);
+    series.add(1.0, 10.0);
+    series.add(2.0, 20.0);
+    series.add(4.0, 0.0);
+
+    assertEquals(15.0, series.getInterpolated(1.5), kEpsilon);
+    assertEquals(10.0, series.getInterpolated(3.0), kEpsilon);
+    // Exactly on a sample
+    assertEquals(20.0, series.getInterpolated(2.0), kEpsilon);
+  }
+
+  @Test
+  void clampsOutsideTheSeries() {
+    InterpolatingTimeSeries series = new InterpolatingTimeSeries(8);
+    series.add(1.0, 10.0);
+    series.add(2.0, 20.0);
+
+    assertEquals(10.0, series.getInterpolated(0.0), kEpsilon);
+    assertEquals(10.0, series.getInterpolated(1.0), kEpsilon);
+    assertEquals(20.0, series.getInterpolated(2.0), kEpsilon);
+    assertEquals(20.0, series.getInterpolated(5.0), kEpsilon);
+  }
+
+  @Test
+  void singleSampleIsReturnedEverywhere() {
+    InterpolatingTimeSeries series = new InterpolatingTimeSeries(4);
+    series.add(1.0, 7.0);
+    assertEquals(7.0, series.getInterpolated(0.0), kEpsilon);
+    assertEquals(7.0, series.getInterpolated(2.0), kEpsilon);
+  }
+
+  @Test
+  void evictsTheOldestSampleAndSearchesAcrossTheWrap() {
+    InterpolatingTimeSeries series = new InterpolatingTimeSeries(4);
+    for (int i = 0; i < 7; i++) {
+      series.add(i, i * 10.0);
+    }
+    // Samples 3 to 6 remain, with the oldest part way through the array
+    assertEquals(4, series.size());
+    assertEquals(30.0, series.getInterpolated(0.0), kEpsilon);
+    for (double t = 3.0; t <= 6.0; t += 0.25) {
+      assertEquals(t * 10.0, series.getInterpolated(t), kEpsilon);
+    }
+  }
+
+  @Test
+  void nonIncreasingTimestampReplacesTheLatestSample() {
+    InterpolatingTimeSeries series = new InterpolatingTimeSeries(4);
+    series.add(1.0, 10.0);
+    series.add(2.0, 20.0);
+    series.add(2.0, 30.0);
+    assertEquals(2, series.size());
+    assertEquals(30.0, series.getInterpolated(2.0), kEpsilon);
+    assertEquals(20.0, series.getInterpolated(1.5), kEpsilon);
+  }
+
+  @Test
+  void addAllMatchesAddingOneAtATime() {
+    double[] timestamps = {0.0, 1.0, 2.0, 3.0, 4.0};
+    double[] values = {5.0, -1.0, 2.0, 8.0, 3.0};
+    InterpolatingTimeSeries batch = new InterpolatingTimeSeries(3);
+    InterpolatingTimeSeries single = new InterpolatingTimeSeries(3);
+    batch.addAll(timestamps, values);
+    for (int i = 0; i < timestamps.length; i++) {
+      single.add(timestamps[i], values[i]);
+    }
+
+    assertEquals(single.size(), batch.size());
+    for (double t = -1.0; t <= 5.0; t += 0.1) {
+      assertEquals(single.getInterpolated(t), batch.getInterpolated(t), kEpsilon);
+    }
+    assertThrows(
+        IllegalArgumentException.class, () -> batch.addAll(new double[2], new double[3]));
+  }
+
+  @Test
+  void clearEmptiesTheSeries() {
+    InterpolatingTimeSeries series = new InterpolatingTimeSeries(4);
+    series.add(1.0, 10.0);
+    series.clear();
+    assertEquals(0, series.size());
+    assertTrue(Double.isNaN(series.getInterpolated(1.0)));
+  }
+}
@@ -0,0 +1,42 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LoopProfilerTest {
+  @Test
+  void smallTimesGetOneBucketPerMicrosecond() {
+    assertEquals(0, LoopProfiler.bucketOf(0));
+    assertEquals(0, LoopProfiler.bucketOf(999));
+    assertEquals(1, LoopProfiler.bucketOf(1_000));
+    assertEquals(3, LoopProfiler.bucketOf(3_999));
+    assertEquals(1, LoopProfiler.bucketUpperBoundMicros(0));
+    assertEquals(4, LoopProfiler.bucketUpperBoundMicros(3));
+  }
+
+  @Test
+  void everyTimeFallsInsideItsBucket() {
+    int previousBucket = 0;
+    for (long micros = 0; micros < 2_000_000; micros += micros < 10_000 ? 1 : 97) {
+      for (long nanos : new long[] {micros * 1000, micros * 1000 + 999}) {
+        int bucket = LoopProfiler.bucketOf(nanos);
+        long upper = LoopProfiler.bucketUpperBoundMicros(bucket);
+        long lower = bucket == 0 ? 0 : LoopProfiler.bucketUpperBoundMicros(bucket - 1);
+        assertTrue(lower <= micros && micros < upper, micros + " us in bucket " + bucket);
+        // Buckets past the linear range are at most 25% wide
+        assertTrue(bucket < 4 || upper - lower <= lower / 4, "bucket " + bucket + " too wide");
+        assertTrue(bucket >= previousBucket, "buckets out of order at " + micros + " us");
+        previousBucket = bucket;
+      }
+    }
+  }
+
+  @Test
+  void hugeTimesGoInTheLastBucket() {
+    int last = LoopProfiler.bucketOf(Long.MAX_VALUE);
+    assertEquals(last, LoopProfiler.bucketOf(Long.MAX_VALUE / 2));
+    assertEquals(last, LoopProfiler.bucketOf(3_600_000_000_000L));
+  }
+}
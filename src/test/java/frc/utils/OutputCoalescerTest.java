@@ -0,0 +1,40 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class OutputCoalescerTest {
+  private enum Mode {
+    kPosition,
+    kVelocity
+  }
+
+  private static OutputCoalescer coalescer() {
+    // Long enough that the keep-alive never fires during a test
+    return new OutputCoalescer("Test", 0.01, 3600);
+  }
+
+  @Test
+  void skipsSmallChangesInTheSameMode() {
+    OutputCoalescer coalescer = coalescer();
+    assertTrue(coalescer.shouldWrite(1, Mode.kPosition));
+    assertFalse(coalescer.shouldWrite(1.005, Mode.kPosition));
+    assertTrue(coalescer.shouldWrite(1.02, Mode.kPosition));
+    assertTrue(coalescer.shouldWrite(1.02, Mode.kVelocity));
+    assertEquals(3, coalescer.getSentCount());
+    assertEquals(1, coalescer.getSkippedCount());
+  }
+
+  @Test
+  void writesAgainAfterInvalidate() {
+    OutputCoalescer coalescer = coalescer();
+    assertTrue(coalescer.shouldWrite(1, Mode.kPosition));
+    assertFalse(coalescer.shouldWrite(1, Mode.kPosition));
+    coalescer.invalidate();
+    assertTrue(coalescer.shouldWrite(1, Mode.kPosition));
+    assertFalse(coalescer.shouldWrite(1, Mode.kPosition));
+  }
+}
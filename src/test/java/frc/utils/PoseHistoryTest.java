@@ -0,0 +1,90 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import org.junit.jupiter.api.Test;
+
+class PoseHistoryTest {
+  private static final double kEpsilon = 1e-9;
+
+  @Test
+  void emptyHistoryHasNoPose() {
+    PoseHistory history = new PoseHistory(4);
+    assertNull(history.getPoseAt(1.0));
+    assertFalse(history.getPoseAt(1.0, new double[3]));
+  }
+
+  @Test
+  void interpolatesEveryCoordinate() {
+    PoseHistory history = new PoseHistory(8);
+    history.record(1.0, new Pose2d(0.0, 0.0, Rotation2d.fromDegrees(0)));
+    history.record(2.0, new Pose2d(2.0, -4.0, Rotation2d.fromDegrees(90)));
+
+    double[] pose = new double[3];
+    assertTrue(history.getPoseAt(1.25, pose));
+    assertEquals(0.5, pose[PoseHistory.kX], kEpsilon);
+    assertEquals(-1.0, pose[PoseHistory.kY], kEpsilon);
+    assertEquals(Math.toRadians(22.5), pose[PoseHistory.kTheta], kEpsilon);
+  }
+
+  @Test
+  void clampsOutsideTheRecordedRange() {
+    PoseHistory history = new PoseHistory(8);
+    history.record(1.0, 1.0, 2.0, 0.5);
+    history.record(2.0, 3.0, 4.0, 1.0);
+
+    Pose2d before = history.getPoseAt(0.0);
+    assertEquals(1.0, before.getX(), kEpsilon);
+    assertEquals(0.5, before.getRotation().getRadians(), kEpsilon);
+    Pose2d after = history.getPoseAt(10.0);
+    assertEquals(3.0, after.getX(), kEpsilon);
+    assertEquals(1.0, after.getRotation().getRadians(), kEpsilon);
+  }
+
+  @Test
+  void headingTakesTheShortWayAcrossTheWrap() {
+    PoseHistory history = new PoseHistory(8);
+    history.record(1.0, 0.0, 0.0, Math.PI - 0.1);
+    history.record(2.0, 0.0, 0.0, -Math.PI + 0.1);
+
+    // Halfway between is pi, not zero
+    double[] pose = new double[3];
+    history.getPoseAt(1.5, pose);
+    assertEquals(Math.PI, Math.abs(pose[PoseHistory.kTheta]), kEpsilon);
+
+    // Headings keep unwrapping over several turns and come back wrapped
+    history.clear();
+    for (int i = 0; i <= 6; i++) {
+      history.record(i, 0.0, 0.0, Math.IEEEremainder(i * 2.0, 2 * Math.PI));
+    }
+    history.getPoseAt(5.5, pose);
+    assertEquals(Math.IEEEremainder(11.0, 2 * Math.PI), pose[PoseHistory.kTheta], kEpsilon);
+  }
+
+  @Test
+  void evictsTheOldestPose() {
+    PoseHistory history = new PoseHistory(3);
+    for (int i = 0; i < 5; i++) {
+      history.record(i, i, 0.0, 0.0);
+    }
+    assertEquals(3, history.size());
+    assertEquals(2.0, history.getPoseAt(0.0).getX(), kEpsilon);
+    assertEquals(3.5, history.getPoseAt(3.5).getX(), kEpsilon);
+  }
+
+  @Test
+  void clearForgetsThePreviousHeading() {
+    PoseHistory history = new PoseHistory(4);
+    history.record(1.0, 0.0, 0.0, 3.0);
+    history.clear();
+    assertEquals(0, history.size());
+
+    history.record(2.0, 0.0, 0.0, -3.0);
+    assertEquals(-3.0, history.getPoseAt(2.0).getRotation().getRadians(), kEpsilon);
+  }
+}
@@ -0,0 +1,88 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class SwerveSetpointGeneratorTest {
+  private static final double kEpsilon = 1e-6;
+  private static final double[] kModuleX = {0.3, 0.3, -0.3, -0.3};
+  private static final double[] kModuleY = {0.3, -0.3, 0.3, -0.3};
+  private static final double kMaxSpeed = 4.0;
+  private static final double kMaxAcceleration = 8.0;
+  private static final double kMaxSteering = 10.0;
+  private static final double kDt = 0.02;
+
+  private final FourModuleSwerveKinematics m_kinematics =
+      new FourModuleSwerveKinematics(kModuleX, kModuleY);
+  private final SwerveSetpointGenerator m_generator = new SwerveSetpointGenerator(
+      m_kinematics, kModuleX, kModuleY, kMaxSpeed, kMaxAcceleration, kMaxSteering);
+  private final double[] m_speeds = new double[4];
+  private final double[] m_angles = new double[4];
+
+  @Test
+  void limitsModuleAccelerationFromRest() {
+    m_generator.reset(0, 0, 0, new double[4]);
+    m_generator.generate(kMaxSpeed, 0, 0, kDt, m_speeds, m_angles);
+    for (int i = 0; i < 4; i++) {
+      assertEquals(kMaxAcceleration * kDt, m_speeds[i], kEpsilon);
+    }
+  }
+
+  @Test
+  void limitsEveryStepAndReachesTheRequest() {
+    // Driving forward, then asked to drive sideways while turning
+    m_generator.reset(2, 0, 0, new double[4]);
+    double[] previousVx = new double[4];
+    double[] previousVy = new double[4];
+    double[] previousAngles = new double[4];
+    m_kinematics.toModuleStates(2, 0, 0, m_speeds, previousAngles);
+    for (int i = 0; i < 4; i++) {
+      previousVx[i] = m_speeds[i] * Math.cos(previousAngles[i]);
+      previousVy[i] = m_speeds[i] * Math.sin(previousAngles[i]);
+    }
+
+    for (int step = 0; step < 500; step++) {
+      m_generator.generate(0, 2, 1, kDt, m_speeds, m_angles);
+      for (int i = 0; i < 4; i++) {
+        double vx = m_speeds[i] * Math.cos(m_angles[i]);
+        double vy = m_speeds[i] * Math.sin(m_angles[i]);
+        double velocityStep = Math.hypot(vx - previousVx[i], vy - previousVy[i]);
+        assertTrue(velocityStep <= kMaxAcceleration * kDt + kEpsilon, "acceleration " + velocityStep);
+
+        // A wheel may reverse instead of turning more than a quarter turn
+        if (m_speeds[i] > kEpsilon && Math.hypot(previousVx[i], previousVy[i]) > kEpsilon) {
+          double change = SwerveUtils.AngleDifference(
+              SwerveUtils.WrapAngle(m_angles[i]), SwerveUtils.WrapAngle(previousAngles[i]));
+          change = Math.min(change, Math.PI - change);
+          assertTrue(change <= kMaxSteering * kDt + kEpsilon, "steering " + change);
+        }
+        previousVx[i] = vx;
+        previousVy[i] = vy;
+        previousAngles[i] = m_angles[i];
+      }
+    }
+
+    double[] expectedSpeeds = new double[4];
+    double[] expectedAngles = m_angles.clone();
+    m_kinematics.toModuleStates(0, 2, 1, expectedSpeeds, expectedAngles);
+    for (int i = 0; i < 4; i++) {
+      assertEquals(expectedSpeeds[i], m_speeds[i], kEpsilon);
+      assertEquals(expectedAngles[i], m_angles[i], kEpsilon);
+    }
+  }
+
+  @Test
+  void scalesRequestsAboveTheTopSpeed() {
+    m_generator.reset(0, 0, 0, new double[4]);
+    for (int step = 0; step < 500; step++) {
+      m_generator.generate(3 * kMaxSpeed, 0, 2, kDt, m_speeds, m_angles);
+    }
+    double fastest = 0;
+    for (int i = 0; i < 4; i++) {
+      fastest = Math.max(fastest, m_speeds[i]);
+    }
+    assertEquals(kMaxSpeed, fastest, kEpsilon);
+  }
+}